@@ -0,0 +1,84 @@
+package Benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import DungeonCrawling.BattleEngine;
+
+/** BattleThroughput benchmark:
+ * measures how many monster parties can be generated per second when 1, 2, 4... up to all the available
+ * cores each drive their own BattleEngine. since engines share no mutable state, the throughput should
+ * grow close to linearly with the number of threads. run from the project root so that the resources
+ * folder can be found:
+ * java -cp out/production/RandomDungeonCrawlerFXGL Benchmarks.BattleThroughput [partiesPerThread]
+ */
+public class BattleThroughput {
+    // benchmark setup
+    private static final String[] HOSTILES = {"slime"};
+    private static final int[] CHANCES = {100};
+    private static final int WARMUP_ROUNDS = 2;
+
+    /**
+     * builds an engine set up for a standard floor.
+     * @return a ready to use BattleEngine.
+     */
+    private static BattleEngine floorEngine(){
+        BattleEngine engine = new BattleEngine();
+        engine.setHostilesList(HOSTILES);
+        engine.setHostilesChances(CHANCES);
+        engine.setDangerLevel(3);
+        return engine;
+    }
+
+    /**
+     * runs "perThread" party generations on each of the "threads" threads and returns the elapsed time.
+     * @param threads the number of threads to use.
+     * @param perThread the number of parties each thread must generate.
+     * @return the elapsed time in nanoseconds.
+     */
+    private static long run(int threads, int perThread) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayList<Callable<Integer>> jobs = new ArrayList<Callable<Integer>>(threads);
+            for (int t = 0; t < threads; t++) {
+                jobs.add(() -> {
+                    BattleEngine engine = floorEngine(); // confined to this thread
+                    int spawned = 0;
+                    for (int i = 0; i < perThread; i++) {
+                        spawned += engine.monsterParty().size();
+                    }
+                    return spawned;
+                });
+            }
+            long start = System.nanoTime();
+            for (Future<Integer> f : pool.invokeAll(jobs)) {
+                f.get(); // propagate failures
+            }
+            return System.nanoTime() - start;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int perThread = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(cores, perThread / 10 + 1);
+        }
+        double single = 0;
+        System.out.println("threads\tparties/s\tscaling");
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            long elapsed = run(threads, perThread);
+            double rate = (double) threads * perThread / (elapsed / 1e9);
+            if (threads == 1)
+                single = rate;
+            System.out.printf("%d\t%.0f\t%.2fx%n", threads, rate, rate / single);
+            if (threads == cores)
+                break;
+        }
+    }
+}
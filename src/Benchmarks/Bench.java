@@ -0,0 +1,55 @@
+package Benchmarks;
+
+import java.lang.management.ManagementFactory;
+
+/** Bench helper:
+ * minimal micro-benchmark harness used by the benchmarks of this package. an operation is run for a few
+ * warmup rounds so that the JIT compiles it, then for a few measured rounds. the harness reports the
+ * average time per operation and the bytes allocated per operation by the measuring thread, which plays
+ * the part of a GC allocation profiler.
+ */
+public class Bench {
+    // setup
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+    private static long sink; // keeps results alive so that the JIT doesn't remove the measured code
+
+    /** Op interface:
+     * a benchmarked operation. it runs the operation "iterations" times and returns any value computed
+     * from the results.
+     */
+    public interface Op{
+        long run(int iterations) throws Exception;
+    }
+
+    /**
+     * @return the number of bytes allocated so far by the current thread.
+     */
+    private static long allocated(){
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * measures an operation and prints its average time and allocations per operation.
+     * @param name the name to report the operation under.
+     * @param iterations the number of operations per round.
+     * @param op the operation to measure.
+     * @return the average time per operation in nanoseconds.
+     */
+    public static double measure(String name, int iterations, Op op) throws Exception {
+        for(int i = 0; i < WARMUP_ROUNDS; i++){
+            sink += op.run(iterations);
+        }
+        long bytes = allocated();
+        long start = System.nanoTime();
+        for(int i = 0; i < MEASURED_ROUNDS; i++){
+            sink += op.run(iterations);
+        }
+        long elapsed = System.nanoTime() - start;
+        bytes = allocated() - bytes;
+        double total = (double) iterations * MEASURED_ROUNDS;
+        double nsPerOp = elapsed / total;
+        System.out.printf("%-40s %12.2f ns/op %12.1f B/op%n", name, nsPerOp, bytes / total);
+        return nsPerOp;
+    }
+}
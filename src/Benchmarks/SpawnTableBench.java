@@ -0,0 +1,67 @@
+package Benchmarks;
+
+import Customs.Utilities.AliasTable;
+import Customs.Utilities.RandomStream;
+
+/** SpawnTableBench benchmark:
+ * compares the alias table BattleEngine draws hostiles from with the rejection loop it used to run: pick
+ * a random hostile and keep it with its chance of encounter, else try again. each floor is measured in
+ * draws of one hostile; the rejection loop gets slower as the chances get lower while the alias table
+ * doesn't. the frequencies of both samplers are printed too so they can be checked against each other.
+ * java Benchmarks.SpawnTableBench
+ */
+public class SpawnTableBench {
+    private static final int ITERATIONS = 1_000_000;
+
+    /**
+     * the former sampler of BattleEngine.monsterParty(). never returns when every chance is 0.
+     */
+    private static int rejection(int[] chances, RandomStream rng){
+        while(true){
+            int index = rng.nextInt(chances.length);
+            if(rng.nextInt(100) < chances[index])
+                return index;
+        }
+    }
+
+    /**
+     * measures both samplers on a floor.
+     * @param name the name of the floor.
+     * @param chances the chances of encounter of its hostiles.
+     */
+    private static void floor(String name, int[] chances) throws Exception {
+        AliasTable table = new AliasTable(chances);
+        RandomStream rng = new RandomStream(42);
+        Bench.measure(name + ": rejection loop", ITERATIONS, n -> {
+            long sum = 0;
+            for(int i = 0; i < n; i++) sum += rejection(chances, rng);
+            return sum;
+        });
+        Bench.measure(name + ": alias table", ITERATIONS, n -> {
+            long sum = 0;
+            for(int i = 0; i < n; i++) sum += table.next(rng);
+            return sum;
+        });
+        long[] rejected = new long[chances.length];
+        long[] aliased = new long[chances.length];
+        for(int i = 0; i < ITERATIONS; i++){
+            rejected[rejection(chances, rng)]++;
+            aliased[table.next(rng)]++;
+        }
+        double worst = 0;
+        for(int i = 0; i < chances.length; i++){
+            worst = Math.max(worst, Math.abs(rejected[i] - aliased[i]) / (double) ITERATIONS);
+        }
+        System.out.printf("%-40s %12.4f%% max frequency gap%n", name, worst * 100);
+    }
+
+    public static void main(String[] args) throws Exception {
+        floor("common (4 at 100)", new int[]{100, 100, 100, 100});
+        floor("mixed (4 from 80 to 5)", new int[]{80, 40, 20, 5});
+        int[] rare = new int[32];
+        for(int i = 0; i < rare.length; i++){
+            rare[i] = 1 + i % 3;
+        }
+        floor("rare (32 from 1 to 3)", rare);
+    }
+}
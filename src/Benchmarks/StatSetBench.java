@@ -0,0 +1,98 @@
+package Benchmarks;
+
+import java.util.Hashtable;
+
+import WorldComponents.Basics.Defines;
+import WorldComponents.Basics.Defines.StatId;
+import WorldComponents.Basics.Stats.StatSet;
+
+/** StatSetBench benchmark:
+ * compares the packed StatSet with the former Hashtable<String, Stat> layout on the operations battles do
+ * the most: resolving a hit (read ATK and DEF, lower HP, check health) and cleansing stats at the end of
+ * a turn. the former layout is reproduced by LegacyStatSet as a baseline.
+ * java Benchmarks.StatSetBench
+ */
+public class StatSetBench {
+    private static final int ITERATIONS = 1_000_000;
+
+    /** LegacyStatSet object:
+     * the StatSet as it used to be: a synchronized table of boxed stats keyed by name.
+     */
+    private static class LegacyStatSet{
+        private static class Stat{
+            int current;
+            int max;
+            Stat(int initial){ this.current = initial; this.max = initial; }
+        }
+        private final Hashtable<String, Stat> set = new Hashtable<String, Stat>();
+
+        LegacyStatSet(int[] initValues){
+            for(int i = 0; i < Defines.STATS.length; i++){
+                this.set.put(Defines.STATS[i], new Stat(initValues[i]));
+            }
+        }
+        Stat getStat(String stat){ return this.set.get(stat); }
+        void resetAll(){
+            for(String stat : Defines.STATS){
+                Stat s = this.getStat(stat);
+                s.current = s.max;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] init = {100000, 12, 10, 6, 8, 8, 5};
+        LegacyStatSet legacyA = new LegacyStatSet(init), legacyB = new LegacyStatSet(init);
+        StatSet packedA = new StatSet(init), packedB = new StatSet(init);
+
+        Bench.measure("legacy construction", ITERATIONS, n -> {
+            long sum = 0;
+            for(int i = 0; i < n; i++) sum += new LegacyStatSet(init).getStat("HP").max;
+            return sum;
+        });
+        Bench.measure("packed construction", ITERATIONS, n -> {
+            long sum = 0;
+            for(int i = 0; i < n; i++) sum += new StatSet(init).max(StatId.HP);
+            return sum;
+        });
+        Bench.measure("legacy hit", ITERATIONS, n -> {
+            long sum = 0;
+            for(int i = 0; i < n; i++){
+                int damage = Math.max(1, legacyA.getStat("ATK").current - legacyB.getStat("DEF").current / 2);
+                LegacyStatSet.Stat hp = legacyB.getStat("HP");
+                hp.current = Math.max(0, hp.current - damage);
+                sum += hp.current <= legacyB.getStat("HP").max / 4 ? 1 : 0;
+                if(hp.current == 0) legacyB.resetAll();
+            }
+            return sum;
+        });
+        Bench.measure("packed hit", ITERATIONS, n -> {
+            long sum = 0;
+            for(int i = 0; i < n; i++){
+                int damage = Math.max(1, packedA.current(StatId.ATK) - packedB.current(StatId.DEF) / 2);
+                if(damage >= packedB.current(StatId.HP)) packedB.resetAll();
+                else packedB.lowerBy(StatId.HP, damage);
+                sum += packedB.current(StatId.HP) <= packedB.max(StatId.HP) / 4 ? 1 : 0;
+            }
+            return sum;
+        });
+        Bench.measure("packed hit via String shim", ITERATIONS, n -> {
+            long sum = 0;
+            for(int i = 0; i < n; i++){
+                int damage = Math.max(1, packedA.getStat("ATK").current() - packedB.getStat("DEF").current() / 2);
+                if(damage >= packedB.getStat("HP").current()) packedB.resetAll();
+                else packedB.getStat("HP").lowerBy(damage);
+                sum += packedB.getStat("HP").current() <= packedB.getStat("HP").max() / 4 ? 1 : 0;
+            }
+            return sum;
+        });
+        Bench.measure("legacy resetAll", ITERATIONS, n -> {
+            for(int i = 0; i < n; i++) legacyA.resetAll();
+            return legacyA.getStat("HP").current;
+        });
+        Bench.measure("packed resetAll", ITERATIONS, n -> {
+            for(int i = 0; i < n; i++) packedA.resetAll();
+            return packedA.current(StatId.HP);
+        });
+    }
+}
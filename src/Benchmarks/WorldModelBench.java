@@ -0,0 +1,146 @@
+package Benchmarks;
+
+import Customs.Utilities.ContentRegistry;
+import Customs.Utilities.JsonIO;
+import DungeonCrawling.BattleEngine;
+import WorldComponents.Basics.Body;
+import WorldComponents.Basics.Collectibles.Gear;
+import WorldComponents.Basics.Collectibles.Item;
+import WorldComponents.Basics.Defines.BodySlot;
+import WorldComponents.Basics.Defines.GearReq;
+import WorldComponents.Basics.Defines.GearType;
+import WorldComponents.Basics.Defines.StatId;
+import WorldComponents.Basics.Leveling.Level;
+import WorldComponents.Basics.Stats.StatSet;
+import WorldComponents.Basics.StorageKits.Bag;
+
+/** WorldModelBench benchmark:
+ * measures the hot operations of the world model: stat sets, bodies, bags, levels, data file loading and
+ * party generation. each line reports the average time and the bytes allocated per operation so that a
+ * change to these classes can be checked for speed and garbage before it is merged. run from the project
+ * root so that the resources folder can be found:
+ * java Benchmarks.WorldModelBench [name filter]
+ */
+public class WorldModelBench {
+    private static final int ITERATIONS = 200_000;
+    private static final int IO_ITERATIONS = 2_000; // file loading is much slower
+
+    public static void main(String[] args) throws Exception {
+        String filter = args.length > 0 ? args[0] : "";
+        int[] init = {60, 12, 10, 6, 8, 8, 5};
+        ContentRegistry.shared(); // keep parsing out of the measures
+
+        // StatSet
+        if("StatSet".contains(filter)){
+            StatSet stats = new StatSet(init);
+            Bench.measure("StatSet construction", ITERATIONS, n -> {
+                long sum = 0;
+                for(int i = 0; i < n; i++) sum += new StatSet(init).max(StatId.HP);
+                return sum;
+            });
+            Bench.measure("StatSet access by StatId", ITERATIONS, n -> {
+                long sum = 0;
+                for(int i = 0; i < n; i++) sum += stats.current(StatId.ATK) + stats.max(StatId.DEF);
+                return sum;
+            });
+            Bench.measure("StatSet access by String", ITERATIONS, n -> {
+                long sum = 0;
+                for(int i = 0; i < n; i++) sum += stats.getStat("ATK").current() + stats.getStat("DEF").max();
+                return sum;
+            });
+        }
+
+        // Body
+        if("Body".contains(filter)){
+            Body body = new Body();
+            Gear sword = new Gear("Sword", "", 10, GearType.SWORD, new int[]{0, 5, 0, 0, 0, 0, 0}, GearReq.ONE_HAND);
+            Gear armor = new Gear("Mail", "", 10, GearType.HEAVY, new int[]{0, 0, 5, 0, 0, 0, 0}, GearReq.BODY);
+            Bench.measure("Body.putOn + takeOff", ITERATIONS, n -> {
+                long sum = 0;
+                for(int i = 0; i < n; i++){
+                    body.putOn(sword);
+                    body.putOn(armor);
+                    sum += body.takeOff(BodySlot.RHAND) == null ? 0 : 1;
+                    sum += body.takeOff(BodySlot.ARMOR) == null ? 0 : 1;
+                }
+                return sum;
+            });
+        }
+
+        // Bag
+        if("Bag".contains(filter)){
+            Item[] items = new Item[8];
+            for(int i = 0; i < items.length; i++){
+                items[i] = new Item("Item " + i, "", i);
+            }
+            Bench.measure("Bag fill (store x BAG_SIZE)", ITERATIONS / Bag.BAG_SIZE, n -> {
+                long sum = 0;
+                for(int i = 0; i < n; i++){
+                    Bag bag = new Bag();
+                    for(int j = 0; j < Bag.BAG_SIZE; j++) bag.store(items[j % items.length]);
+                    sum += bag.stockSize();
+                }
+                return sum;
+            });
+            Bag full = new Bag();
+            for(int j = 0; j < Bag.BAG_SIZE; j++) full.store(items[j % items.length]);
+            Bench.measure("Bag.nameSearch (full bag)", ITERATIONS, n -> {
+                long sum = 0;
+                for(int i = 0; i < n; i++) sum += full.nameSearch(items[i % items.length].name());
+                return sum;
+            });
+            Bench.measure("Bag.takeOut + store (full bag)", ITERATIONS, n -> {
+                long sum = 0;
+                for(int i = 0; i < n; i++){
+                    Item out = full.takeOut(0);
+                    full.store(out);
+                    sum += full.stockSize();
+                }
+                return sum;
+            });
+        }
+
+        // Level
+        if("Level".contains(filter)){
+            Bench.measure("Level.earn", ITERATIONS, n -> {
+                Level level = new Level(1);
+                long sum = 0;
+                for(int i = 0; i < n; i++) sum += level.earn(7) ? 1 : 0;
+                return sum;
+            });
+        }
+
+        // JsonIO
+        if("JsonIO".contains(filter)){
+            Bench.measure("JsonIO.loadAction", IO_ITERATIONS, n -> {
+                long sum = 0;
+                for(int i = 0; i < n; i++) sum += JsonIO.loadAction("cleave").cooldown();
+                return sum;
+            });
+            Bench.measure("JsonIO.loadHostile", IO_ITERATIONS, n -> {
+                long sum = 0;
+                for(int i = 0; i < n; i++) sum += JsonIO.loadHostile("slime").level().current();
+                return sum;
+            });
+            ContentRegistry content = ContentRegistry.shared();
+            Bench.measure("ContentRegistry.spawn", ITERATIONS, n -> {
+                long sum = 0;
+                for(int i = 0; i < n; i++) sum += content.spawn("slime").level().current();
+                return sum;
+            });
+        }
+
+        // BattleEngine
+        if("BattleEngine".contains(filter)){
+            BattleEngine engine = new BattleEngine();
+            engine.setHostilesList(new String[]{"slime"});
+            engine.setHostilesChances(new int[]{100});
+            engine.setDangerLevel(3);
+            Bench.measure("BattleEngine.monsterParty", ITERATIONS, n -> {
+                long sum = 0;
+                for(int i = 0; i < n; i++) sum += engine.monsterParty().size();
+                return sum;
+            });
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package Customs.Exceptions;
+
+import java.lang.Exception;
+
+/** FormulaSyntaxException:
+ * this exception is thrown when a formula read from the game data can't be compiled because it
+ * is not a valid expression or because it refers to an unknown variable or function.
+ */
+public class FormulaSyntaxException extends Exception{
+    private static final long serialVersionUID = 1L;
+
+    public FormulaSyntaxException(String errMessage){
+        super(errMessage);
+    }
+}
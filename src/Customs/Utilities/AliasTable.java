@@ -0,0 +1,86 @@
+package Customs.Utilities;
+
+import Customs.Exceptions.NegativeValueArgumentException;
+
+/** AliasTable object:
+ * weighted random sampling table built with Vose's alias method. the table is built once in O(n) from
+ * integer weights; every draw then costs two bounded random ints whatever the number of outcomes and the
+ * spread of the weights. outcome i is drawn with probability weights[i] / sum(weights). the table is
+ * immutable once built so it can be shared by engines of different threads, each drawing from its own
+ * RandomStream.
+ */
+public class AliasTable {
+    // attributes
+    private final int[] threshold; // a draw of column i keeps i when the coin is under threshold[i]
+    private final int[] alias; // else it gives alias[i]
+    private final int total; // sum of the weights: the coin is drawn in [0, total)
+
+    /** constructor:
+     * builds the table of the passed weights. integer arithmetic is used throughout so the probabilities
+     * are exact.
+     * @param weights the weight of each outcome. outcomes of weight 0 are never drawn.
+     * @throws NegativeValueArgumentException if a weight is negative, if all of them are 0 or if their sum
+     * doesn't fit an int.
+     */
+    public AliasTable(int[] weights) throws NegativeValueArgumentException {
+        int n = weights.length;
+        long sum = 0;
+        for(int w : weights){
+            if(w < 0)
+                throw new NegativeValueArgumentException("weights may not be negative");
+            sum += w;
+        }
+        if(sum == 0 || sum > Integer.MAX_VALUE)
+            throw new NegativeValueArgumentException("weights must have a positive sum that fits an int");
+        this.total = (int) sum;
+        this.threshold = new int[n];
+        this.alias = new int[n];
+
+        // every column holds "total" units of probability; outcome i brings weights[i] * n of them
+        long[] scaled = new long[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smalls = 0;
+        int larges = 0;
+        for(int i = 0; i < n; i++){
+            scaled[i] = (long) weights[i] * n;
+            if(scaled[i] < sum)
+                small[smalls++] = i;
+            else
+                large[larges++] = i;
+        }
+        while(smalls > 0 && larges > 0){
+            int s = small[--smalls];
+            int l = large[--larges];
+            this.threshold[s] = (int) scaled[s];
+            this.alias[s] = l;
+            scaled[l] -= sum - scaled[s]; // l fills what s leaves of its column
+            if(scaled[l] < sum)
+                small[smalls++] = l;
+            else
+                large[larges++] = l;
+        }
+        while(larges > 0){ // exact arithmetic leaves only full columns
+            int l = large[--larges];
+            this.threshold[l] = this.total;
+            this.alias[l] = l;
+        }
+    }
+
+    // getters
+    /**
+     * @return the number of outcomes of the table.
+     */
+    public int size(){ return this.threshold.length; }
+
+    // other methods
+    /**
+     * draws an outcome in O(1).
+     * @param rng the stream to draw from.
+     * @return the index of the drawn outcome.
+     */
+    public int next(RandomStream rng){
+        int column = rng.nextInt(this.threshold.length);
+        return rng.nextInt(this.total) < this.threshold[column] ? column : this.alias[column];
+    }
+}
@@ -0,0 +1,408 @@
+package Customs.Utilities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import Customs.Exceptions.UndefinedKeyException;
+import WorldComponents.Basics.Actions.*;
+import WorldComponents.Basics.Collectibles.Item;
+import WorldComponents.Basics.Elements.Element;
+import WorldComponents.Mobs.Hostiles.Prototype;
+import WorldComponents.Mobs.Hostiles.Tactics;
+
+/** ContentPack object:
+ * binary version of the game data files. the pack is compiled from the .json resources by running this
+ * class (see main()) and gathers every action, item and hostile in a single file made of:
+ * - a header: magic number, version, number of strings, actions, items and hostiles and section offsets;
+ * - an index: for each action, item and hostile, the string id of its name and the offset of its record;
+ * - a string table: the offset of each string followed by the strings as length prefixed UTF-8;
+ * - the records: the fixed layout data of each action, item and hostile. strings are stored as string ids.
+ * at runtime the pack is memory mapped and only its index is read when it is opened. records are decoded
+ * when they are first requested. reads only use absolute positions so an opened pack can be shared by
+ * every thread.
+ */
+public class ContentPack {
+    // file layout constants
+    public static final String PACK_PATH = "./resources/content.pack";
+    private static final int MAGIC = 0x52444350; // "RDCP"
+    private static final int VERSION = 2; // 2: hostiles have actions and tactics
+    private static final int HEADER_SIZE = 32;
+    private static final int NO_STRING = -1; // string id of null strings
+    // action types
+    private static final byte AGRESS = 0;
+    private static final byte BUFF = 1;
+    private static final byte NERF = 2;
+    // attributes
+    private final ByteBuffer data;
+    private final int stringTable;
+    private final Map<String, Integer> actions; // id -> record offset
+    private final Map<String, Integer> items;
+    private final Map<String, Integer> hostiles;
+
+    /** Resolver interface:
+     * turns the id of a record another record refers to into its shared object, e.g. ContentRegistry::item.
+     */
+    public interface Resolver<T>{
+        T resolve(String id) throws UndefinedKeyException;
+    }
+
+    /** constructor:
+     * reads the header and the index of a mapped pack.
+     * @param data the content of the pack file.
+     * @throws IOException when the data is not a content pack of the supported version.
+     */
+    private ContentPack(ByteBuffer data) throws IOException {
+        this.data = data;
+        if(data.getInt(0) != MAGIC || data.getInt(4) != VERSION){
+            throw new IOException("not a version " + VERSION + " content pack.");
+        }
+        this.stringTable = data.getInt(12);
+        int actionCount = data.getInt(16);
+        int itemCount = data.getInt(20);
+        int hostileCount = data.getInt(24);
+        int index = data.getInt(28);
+        this.actions = this.readIndex(index, actionCount);
+        index += actionCount * 8;
+        this.items = this.readIndex(index, itemCount);
+        index += itemCount * 8;
+        this.hostiles = this.readIndex(index, hostileCount);
+    }
+
+    /**
+     * memory maps the pack at the specified path. only the index is decoded.
+     * @param path the path of the pack file.
+     * @return the opened ContentPack.
+     * @throws IOException when the file can't be read or isn't a content pack.
+     */
+    public static ContentPack open(String path) throws IOException {
+        try(FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)){
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ContentPack(mapped);
+        }
+    }
+
+    /**
+     * @param offset where the index section starts.
+     * @param count the number of entries of the section.
+     * @return a map of the entries ids to their record offset.
+     */
+    private Map<String, Integer> readIndex(int offset, int count){
+        HashMap<String, Integer> index = new HashMap<String, Integer>(count * 2);
+        for(int i = 0; i < count; i++){
+            index.put(this.string(this.data.getInt(offset + i * 8)), this.data.getInt(offset + i * 8 + 4));
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * @param id the id of a string of the string table.
+     * @return the decoded string; null for NO_STRING.
+     */
+    private String string(int id){
+        if(id == NO_STRING)
+            return null;
+        int at = this.data.getInt(this.stringTable + id * 4);
+        byte[] bytes = new byte[this.data.getShort(at) & 0xFFFF];
+        this.data.get(at + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    /**
+     * @param at the offset of a string array: a count followed by string ids.
+     * @return the decoded strings.
+     */
+    private String[] strings(int at){
+        String[] decoded = new String[this.data.get(at)];
+        for(int i = 0; i < decoded.length; i++){
+            decoded[i] = this.string(this.data.getInt(at + 1 + i * 4));
+        }
+        return decoded;
+    }
+
+    // getters
+    /**
+     * @return the ids of all the actions of the pack.
+     */
+    public Set<String> actionIds(){ return this.actions.keySet(); }
+    /**
+     * @return the ids of all the items of the pack.
+     */
+    public Set<String> itemIds(){ return this.items.keySet(); }
+    /**
+     * @return the ids of all the hostiles of the pack.
+     */
+    public Set<String> hostileIds(){ return this.hostiles.keySet(); }
+
+    /**
+     * decodes the record of an action.
+     * @param id the id of the action.
+     * @return a new Action object or null if the pack doesn't contain such an action.
+     * @throws UndefinedKeyException when the record holds an invalid elemental attribute.
+     */
+    public Action action(String id) throws UndefinedKeyException {
+        Integer offset = this.actions.get(id);
+        if(offset == null)
+            return null;
+        int at = offset;
+        byte type = this.data.get(at);
+        String name = this.string(this.data.getInt(at + 1));
+        String description = this.string(this.data.getInt(at + 5));
+        Element attribute = JsonIO.element(this.data.get(at + 9));
+        Category category = Category.values()[this.data.get(at + 10)];
+        Target target = Target.values()[this.data.get(at + 11)];
+        float multiplier = this.data.getFloat(at + 12);
+        int accuracy = this.data.getInt(at + 16);
+        int cooldown = this.data.getInt(at + 20);
+        int duration = this.data.getInt(at + 24);
+        return switch (type){
+            case BUFF -> new Buff(name, attribute, category, target, multiplier, accuracy, cooldown, duration,
+                this.strings(at + 28), description);
+            case NERF -> new Nerf(name, attribute, category, target, multiplier, accuracy, cooldown, duration,
+                this.strings(at + 28), description);
+            default -> new Agress(name, attribute, category, target, multiplier, accuracy, cooldown, duration,
+                description);
+        };
+    }
+    /**
+     * decodes the record of an item.
+     * @param id the id of the item.
+     * @return a new Item object or null if the pack doesn't contain such an item.
+     */
+    public Item item(String id){
+        Integer offset = this.items.get(id);
+        if(offset == null)
+            return null;
+        int at = offset;
+        return new Item(this.string(this.data.getInt(at)), this.string(this.data.getInt(at + 4)),
+            this.data.getInt(at + 8));
+    }
+    /**
+     * decodes the record of a hostile.
+     * @param id the id of the hostile.
+     * @param items gives the shared item of a loot id, e.g. ContentRegistry::item. if null, the loot is
+     * decoded from the pack into new objects.
+     * @param actions gives the shared action of an action id, e.g. ContentRegistry::action. if null, the
+     * actions are decoded from the pack into new objects.
+     * @return a new Prototype object or null if the pack doesn't contain such a hostile.
+     * @throws UndefinedKeyException when the record holds an invalid elemental attribute or a resolver
+     * doesn't know a loot or action id.
+     */
+    public Prototype hostile(String id, Resolver<Item> items, Resolver<Action> actions)
+        throws UndefinedKeyException
+    {
+        Integer offset = this.hostiles.get(id);
+        if(offset == null)
+            return null;
+        int at = offset;
+        boolean boss = this.data.get(at) == 1;
+        String name = this.string(this.data.getInt(at + 1));
+        String description = this.string(this.data.getInt(at + 5));
+        Element attribute = JsonIO.element(this.data.get(at + 9));
+        int level = this.data.getInt(at + 10);
+        int forms = this.data.getInt(at + 14);
+        at += 18;
+        int[] stats = new int[this.data.get(at++)];
+        for(int i = 0; i < stats.length; i++, at += 4){
+            stats[i] = this.data.getInt(at);
+        }
+        String[] lootIds = this.strings(at);
+        at += 1 + lootIds.length * 4;
+        Item[] loot = new Item[lootIds.length];
+        for(int i = 0; i < loot.length; i++){
+            loot[i] = items != null ? items.resolve(lootIds[i]) : this.item(lootIds[i]);
+        }
+        String[] enhanced = this.strings(at);
+        at += 1 + enhanced.length * 4;
+        String[] actionIds = this.strings(at);
+        at += 1 + actionIds.length * 4;
+        Action[] known = new Action[actionIds.length];
+        for(int i = 0; i < known.length; i++){
+            if(actionIds[i] == null)
+                continue;
+            known[i] = actions != null ? actions.resolve(actionIds[i]) : this.action(actionIds[i]);
+        }
+        float[] weights = new float[this.data.get(at++)];
+        for(int i = 0; i < weights.length; i++, at += 4){
+            weights[i] = this.data.getFloat(at);
+        }
+        return new Prototype(boss, name, description, attribute, level, stats, loot, forms, enhanced, actionIds,
+            known, new Tactics(weights));
+    }
+
+    // pack compilation
+    /** StringTable object:
+     * interns the strings written in the pack and hands out their ids.
+     */
+    private static class StringTable{
+        private final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+        private final ArrayList<byte[]> strings = new ArrayList<byte[]>();
+
+        /**
+         * @param s the string to intern.
+         * @return the id of the string.
+         */
+        int id(String s){
+            if(s == null)
+                return NO_STRING;
+            Integer id = this.ids.get(s);
+            if(id == null){
+                id = this.strings.size();
+                this.ids.put(s, id);
+                this.strings.add(s.getBytes(StandardCharsets.UTF_8));
+            }
+            return id;
+        }
+        /**
+         * @return the size in bytes of the table once written.
+         */
+        int size(){
+            int size = this.strings.size() * 4;
+            for(byte[] bytes : this.strings){
+                size += 2 + bytes.length;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * writes the content of a registry as a pack file.
+     * @param content the registry to compile.
+     * @param path the path of the pack file to write.
+     * @throws Exception when the content can't be read or the file can't be written.
+     */
+    public static void compile(ContentRegistry content, String path) throws Exception {
+        StringTable table = new StringTable();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(records);
+        // records first so that every string gets its id
+        ArrayList<int[]> index = new ArrayList<int[]>(); // {id string, record offset} in section order
+        ArrayList<String> actionIds = new ArrayList<String>(content.actionIds());
+        ArrayList<String> itemIds = new ArrayList<String>(content.itemIds());
+        ArrayList<String> hostileIds = new ArrayList<String>(content.hostileIds());
+        for(String id : actionIds){
+            index.add(new int[]{table.id(id), out.size()});
+            Action action = content.action(id);
+            out.writeByte(action instanceof Buff ? BUFF : action instanceof Nerf ? NERF : AGRESS);
+            out.writeInt(table.id(action.name()));
+            out.writeInt(table.id(action.describe()));
+            out.writeByte(action.attribute().elementalId());
+            out.writeByte(action.category().ordinal());
+            out.writeByte(action.target().ordinal());
+            out.writeFloat(action.multiplier());
+            out.writeInt(action.accuracy());
+            out.writeInt(action.cooldown());
+            out.writeInt(action.duration());
+            if(action instanceof Buff)
+                writeStrings(out, table, ((Buff) action).toBuff());
+            else if(action instanceof Nerf)
+                writeStrings(out, table, ((Nerf) action).toNerf());
+        }
+        for(String id : itemIds){
+            index.add(new int[]{table.id(id), out.size()});
+            Item item = content.item(id);
+            out.writeInt(table.id(item.name()));
+            out.writeInt(table.id(item.describe()));
+            out.writeInt(item.cost());
+        }
+        for(String id : hostileIds){
+            index.add(new int[]{table.id(id), out.size()});
+            Prototype hostile = content.hostile(id);
+            out.writeByte(hostile.isBoss() ? 1 : 0);
+            out.writeInt(table.id(hostile.name()));
+            out.writeInt(table.id(hostile.description()));
+            out.writeByte(hostile.attribute().elementalId());
+            out.writeInt(hostile.level());
+            out.writeInt(hostile.forms());
+            out.writeByte(hostile.stats().length);
+            for(int stat : hostile.stats()){
+                out.writeInt(stat);
+            }
+            String[] loot = new String[hostile.loot().length]; // loot is referred to by item id
+            for(int i = 0; i < loot.length; i++){
+                loot[i] = itemIdOf(content, hostile.loot()[i]);
+            }
+            writeStrings(out, table, loot);
+            writeStrings(out, table, hostile.enhanced());
+            writeStrings(out, table, hostile.actionIds());
+            out.writeByte(Tactics.FEATURES.length);
+            for(int feature = 0; feature < Tactics.FEATURES.length; feature++){
+                out.writeFloat(hostile.tactics().weight(feature));
+            }
+        }
+        out.flush();
+        // then the layout: header, index, string table, records
+        int indexOffset = HEADER_SIZE;
+        int stringTable = indexOffset + index.size() * 8;
+        int recordsOffset = stringTable + table.size();
+        try(DataOutputStream file = new DataOutputStream(new FileOutputStream(path))){
+            file.writeInt(MAGIC);
+            file.writeInt(VERSION);
+            file.writeInt(table.strings.size());
+            file.writeInt(stringTable);
+            file.writeInt(actionIds.size());
+            file.writeInt(itemIds.size());
+            file.writeInt(hostileIds.size());
+            file.writeInt(indexOffset);
+            for(int[] entry : index){
+                file.writeInt(entry[0]);
+                file.writeInt(recordsOffset + entry[1]);
+            }
+            int at = stringTable + table.strings.size() * 4;
+            for(byte[] bytes : table.strings){
+                file.writeInt(at);
+                at += 2 + bytes.length;
+            }
+            for(byte[] bytes : table.strings){
+                file.writeShort(bytes.length);
+                file.write(bytes);
+            }
+            records.writeTo(file);
+        }
+    }
+
+    /**
+     * writes a string array as a count followed by string ids.
+     */
+    private static void writeStrings(DataOutputStream out, StringTable table, String[] strings) throws IOException {
+        out.writeByte(strings.length);
+        for(String s : strings){
+            out.writeInt(table.id(s));
+        }
+    }
+    /**
+     * @return the id under which an item is registered.
+     * @throws UndefinedKeyException if the item isn't registered.
+     */
+    private static String itemIdOf(ContentRegistry content, Item item) throws UndefinedKeyException {
+        for(String id : content.itemIds()){
+            if(content.item(id) == item || content.item(id).name().equals(item.name()))
+                return id;
+        }
+        throw new UndefinedKeyException(item.name() + " is not a registered item.");
+    }
+
+    /**
+     * build step: compiles the .json resources into a content pack.
+     * java Customs.Utilities.ContentPack [output path]
+     */
+    public static void main(String[] args) throws Exception {
+        String path = args.length > 0 ? args[0] : PACK_PATH;
+        ContentRegistry content = ContentRegistry.load();
+        compile(content, path);
+        System.out.println("compiled " + content.actionIds().size() + " actions, " + content.itemIds().size() +
+            " items and " + content.hostileIds().size() + " hostiles into " + path);
+    }
+}
@@ -0,0 +1,233 @@
+package Customs.Utilities;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import Customs.Exceptions.UndefinedKeyException;
+import WorldComponents.Basics.Actions.Action;
+import WorldComponents.Basics.Collectibles.Item;
+import WorldComponents.Mobs.Hostiles.Monster;
+import WorldComponents.Mobs.Hostiles.Prototype;
+
+/** ContentRegistry object:
+ * the registry holds every action, item and hostile definition of the game. all the .json files of the
+ * resources folders are parsed once when the registry is built; afterwards actions, items and hostiles
+ * are instantiated from the in memory prototypes without any file I/O. content is identified by the name
+ * of its data file (eg: "slime" for Hostiles/slime.json). a registry can also be backed by a compiled
+ * ContentPack: records are then decoded the first time they are requested and cached. either way the
+ * definitions never change once loaded so a registry can be shared by every thread.
+ */
+public class ContentRegistry {
+    // attributes
+    private static volatile ContentRegistry shared = null; // registry of the game resources
+    private final ContentPack pack; // null when loaded from the .json files
+    private final Map<String, Action> actions;
+    private final Map<String, Item> items;
+    private final Map<Item, String> itemIds; // reverse of items, filled on lookup
+    private final Map<String, Prototype> hostiles;
+
+    /** constructor:
+     * expects the pack the registry reads from. use load() to build a registry from data files.
+     * @param pack the opened ContentPack or null if all the content is put in the maps right away.
+     */
+    private ContentRegistry(ContentPack pack){
+        this.pack = pack;
+        this.actions = new ConcurrentHashMap<String, Action>();
+        this.items = new ConcurrentHashMap<String, Item>();
+        this.itemIds = new ConcurrentHashMap<Item, String>();
+        this.hostiles = new ConcurrentHashMap<String, Prototype>();
+    }
+
+    /**
+     * parses all the data files from the JsonIO resources folders. actions and items are parsed first so that
+     * hostiles actions and loot can refer to them.
+     * @return the built ContentRegistry.
+     * @throws Exception when any data file is missing or invalid.
+     */
+    public static ContentRegistry load() throws Exception {
+        ContentRegistry registry = new ContentRegistry(null);
+        for(String id : listIds(JsonIO.ACTION_PATH)){
+            registry.actions.put(id, JsonIO.loadAction(id));
+        }
+        for(String id : listIds(JsonIO.ITEM_PATH)){
+            registry.items.put(id, JsonIO.loadItem(id));
+        }
+        for(String id : listIds(JsonIO.HOSTILES_PATH)){
+            registry.hostiles.put(id, JsonIO.loadHostilePrototype(id, registry.items, registry.actions));
+        }
+        return registry;
+    }
+    /**
+     * builds a registry that decodes its content from a compiled pack when it is first requested.
+     * @param pack an opened ContentPack.
+     * @return the built ContentRegistry.
+     */
+    public static ContentRegistry load(ContentPack pack){
+        return new ContentRegistry(pack);
+    }
+
+    /**
+     * returns the registry of the game resources. the resources are loaded on the first call; call it at
+     * startup to keep the parsing cost away from the first battle. the compiled ContentPack is used when
+     * it exists and is newer than every .json file, else the .json files are parsed: a pack that wasn't
+     * rebuilt after an edit is never used.
+     * @return the shared ContentRegistry.
+     * @throws Exception when any data file is missing or invalid.
+     */
+    public static ContentRegistry shared() throws Exception {
+        ContentRegistry registry = shared;
+        if(registry == null){
+            synchronized (ContentRegistry.class){
+                registry = shared;
+                if(registry == null){
+                    registry = isFresh(new File(ContentPack.PACK_PATH)) ?
+                        load(ContentPack.open(ContentPack.PACK_PATH)) : load();
+                    shared = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * @param pack the compiled pack.
+     * @return true if the pack exists and was written after the last change to the .json files.
+     */
+    private static boolean isFresh(File pack){
+        if(!pack.isFile())
+            return false;
+        long built = pack.lastModified();
+        for(String path : new String[]{JsonIO.ACTION_PATH, JsonIO.ITEM_PATH, JsonIO.HOSTILES_PATH}){
+            File folder = new File(path);
+            if(folder.lastModified() > built) // a file was added, renamed or deleted
+                return false;
+            File[] files = folder.listFiles((dir, name) -> name.endsWith(".json"));
+            if(files == null)
+                continue;
+            for(File file : files){
+                if(file.lastModified() > built)
+                    return false;
+            }
+        }
+        return true;
+    }
+    /**
+     * @param folder the folder to list.
+     * @return the name of every .json file of the folder without its extension.
+     */
+    private static String[] listIds(String folder){
+        File[] files = new File(folder).listFiles((dir, name) -> name.endsWith(".json"));
+        if(files == null)
+            return new String[0];
+        String[] ids = new String[files.length];
+        for(int i = 0; i < files.length; i++){
+            String name = files[i].getName();
+            ids[i] = name.substring(0, name.length() - ".json".length());
+        }
+        return ids;
+    }
+
+    // getters
+    /**
+     * @return the ids of all registered actions.
+     */
+    public Set<String> actionIds(){ return this.pack != null ? this.pack.actionIds() : this.actions.keySet(); }
+    /**
+     * @return the ids of all registered items.
+     */
+    public Set<String> itemIds(){ return this.pack != null ? this.pack.itemIds() : this.items.keySet(); }
+    /**
+     * @return the ids of all registered hostiles.
+     */
+    public Set<String> hostileIds(){ return this.pack != null ? this.pack.hostileIds() : this.hostiles.keySet(); }
+    /**
+     * @param id the id of the action.
+     * @return the action. actions are immutable so the same object is shared.
+     * @throws UndefinedKeyException if no such action was registered.
+     */
+    public Action action(String id) throws UndefinedKeyException {
+        Action action = this.actions.get(id);
+        if(action == null && this.pack != null){
+            action = this.pack.action(id);
+            if(action != null)
+                action = this.cache(this.actions, id, action);
+        }
+        if(action == null)
+            throw new UndefinedKeyException(id + " is not a known action.");
+        return action;
+    }
+    /**
+     * @param id the id of the item.
+     * @return the item. items are immutable so the same object is shared.
+     * @throws UndefinedKeyException if no such item was registered.
+     */
+    public Item item(String id) throws UndefinedKeyException {
+        Item item = this.items.get(id);
+        if(item == null && this.pack != null){
+            item = this.pack.item(id);
+            if(item != null)
+                item = this.cache(this.items, id, item);
+        }
+        if(item == null)
+            throw new UndefinedKeyException(id + " is not a known item.");
+        return item;
+    }
+    /**
+     * finds the id an item was registered under. items have no equals() so they are matched by identity:
+     * only the objects returned by this registry have an id.
+     * @param item an item.
+     * @return the id of the item or null if it isn't registered content.
+     */
+    public String itemId(Item item){
+        String id = this.itemIds.get(item);
+        if(id == null){
+            for(Map.Entry<String, Item> entry : this.items.entrySet()){ // only the first lookup scans
+                if(entry.getValue() == item){
+                    id = entry.getKey();
+                    this.itemIds.put(item, id);
+                    break;
+                }
+            }
+        }
+        return id;
+    }
+    /**
+     * @param id the id of the hostile.
+     * @return the prototype of the hostile.
+     * @throws UndefinedKeyException if no such hostile was registered.
+     */
+    public Prototype hostile(String id) throws UndefinedKeyException {
+        Prototype prototype = this.hostiles.get(id);
+        if(prototype == null && this.pack != null){
+            prototype = this.pack.hostile(id, this::item, this::action); // loot and actions shared and cached
+            if(prototype != null)
+                prototype = this.cache(this.hostiles, id, prototype);
+        }
+        if(prototype == null)
+            throw new UndefinedKeyException(id + " is not a known hostile.");
+        return prototype;
+    }
+
+    /**
+     * caches a decoded record. if another thread cached the same record first, its object is kept so that
+     * everyone shares the same one.
+     * @return the cached object.
+     */
+    private <T> T cache(Map<String, T> cache, String id, T decoded){
+        T previous = cache.putIfAbsent(id, decoded);
+        return previous != null ? previous : decoded;
+    }
+
+    // other methods
+    /**
+     * creates a new hostile from its prototype. no file is read.
+     * @param id the id of the hostile.
+     * @return a Monster or Boss object at full stats.
+     * @throws Exception if no such hostile was registered.
+     */
+    public Monster spawn(String id) throws Exception {
+        return this.hostile(id).spawn();
+    }
+}
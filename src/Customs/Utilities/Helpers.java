@@ -15,7 +15,7 @@ public class Helpers {
         int[] converted = new int[ja.size()];
         int i = 0;
         for(Object o : ja){
-            converted[i++] = (int) o;
+            converted[i++] = ((Number) o).intValue(); // json numbers are parsed as Long
         }
         return converted;
     }
@@ -0,0 +1,88 @@
+package Customs.Utilities;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import WorldComponents.Mobs.Hostiles.Monster;
+
+/** HostilePool object:
+ * per species pool of Monster and Boss objects. hostiles are lent with acquire() and all given back at
+ * once with releaseAll(), which resets them to the values they were spawned with (Monster.reset()) and
+ * keeps them for the next acquire() of the same species. after a few encounters a floor is fought without
+ * spawning any new hostile. a pool isn't synchronized: it must be confined to the thread of the engine
+ * that owns it.
+ */
+public class HostilePool {
+    // attributes
+    private final ContentRegistry content; // where missing hostiles are spawned from
+    private final HashMap<String, ArrayDeque<Monster>> free; // idle hostiles by species id
+    private final ArrayList<Monster> lent; // hostiles in use
+    private final ArrayList<String> lentIds; // species id of each hostile in use
+
+    /** constructor:
+     * expects the registry new hostiles are spawned from.
+     * @param content a loaded ContentRegistry.
+     */
+    public HostilePool(ContentRegistry content){
+        this.content = content;
+        this.free = new HashMap<String, ArrayDeque<Monster>>();
+        this.lent = new ArrayList<Monster>();
+        this.lentIds = new ArrayList<String>();
+    }
+
+    // getters
+    /**
+     * @return the number of hostiles in use.
+     */
+    public int lent(){ return this.lent.size(); }
+    /**
+     * @param id the id of a species.
+     * @return the number of idle hostiles of that species.
+     */
+    public int idle(String id){
+        ArrayDeque<Monster> species = this.free.get(id);
+        return species == null ? 0 : species.size();
+    }
+
+    // other methods
+    /**
+     * spawns hostiles of a species ahead of time so that acquire() doesn't have to. this is meant to be
+     * done away from the game thread, before the pool is handed to its engine.
+     * @param id the id of the species.
+     * @param count the number of idle hostiles the species should have.
+     * @throws Exception if the species is unknown or a hostile couldn't be spawned.
+     */
+    public void reserve(String id, int count) throws Exception {
+        ArrayDeque<Monster> species = this.free.computeIfAbsent(id, key -> new ArrayDeque<Monster>());
+        while(species.size() < count){
+            species.push(this.content.spawn(id));
+        }
+    }
+    /**
+     * lends a hostile at full stats: an idle one if the species has any, else a new one.
+     * @param id the id of the species.
+     * @return the Monster or Boss object.
+     * @throws Exception if the species is unknown or a new hostile couldn't be spawned.
+     */
+    public Monster acquire(String id) throws Exception {
+        ArrayDeque<Monster> species = this.free.get(id);
+        Monster hostile = species == null || species.isEmpty() ? this.content.spawn(id) : species.pop();
+        this.lent.add(hostile);
+        this.lentIds.add(id);
+        return hostile;
+    }
+    /**
+     * resets every lent hostile and makes it available again. hostiles acquired before must not be used
+     * anymore.
+     */
+    public void releaseAll(){
+        for(int i = 0; i < this.lent.size(); i++){
+            Monster hostile = this.lent.get(i);
+            hostile.reset();
+            this.free.computeIfAbsent(this.lentIds.get(i), id -> new ArrayDeque<Monster>()).push(hostile);
+        }
+        this.lent.clear();
+        this.lentIds.clear();
+    }
+}
@@ -1,7 +1,6 @@
 package Customs.Utilities;
 
 import java.io.FileReader;
-import java.util.Iterator;
 import java.util.Map;
 
 import org.json.simple.JSONArray;
@@ -9,10 +8,12 @@ import org.json.simple.JSONObject;
 import org.json.simple.parser.*;
 
 import WorldComponents.Basics.Actions.*;
-import WorldComponents.Basics.Elements.*;
+import WorldComponents.Basics.Elements;
+import WorldComponents.Basics.Elements.Element;
 import WorldComponents.Basics.Collectibles.Item;
 import WorldComponents.Mobs.Hostiles.Monster;
-import WorldComponents.Mobs.Hostiles.Boss;
+import WorldComponents.Mobs.Hostiles.Prototype;
+import WorldComponents.Mobs.Hostiles.Tactics;
 import Customs.Exceptions.UndefinedKeyException;
 
 /** JsonIO package:
@@ -26,6 +27,31 @@ public class JsonIO {
     final static String ACTION_PATH = "./resources/JSON/Actions/";
     final static String ITEM_PATH = "./resources/JSON/Items/";
     final static String HOSTILES_PATH = "./resources/JSON/Hostiles/";
+    final static String FORMULA_PATH = "./resources/JSON/Formulas/";
+
+    /**
+     * converts the elemental attribute number used by data files to an Element.
+     * @param id -1 or Elements.NONE for no element, else one of the Elements constants.
+     * @return the shared Element object.
+     * @throws UndefinedKeyException when id is not a valid elemental attribute.
+     */
+    static Element element(int id) throws UndefinedKeyException {
+        if(id < -1 || id >= Elements.COUNT){
+            throw new UndefinedKeyException(id + " is not a valid elemental attribute.");
+        }
+        return Elements.of(id);
+    }
+
+    /**
+     * parses a json file and closes it.
+     * @param filepath the path of the file.
+     * @return the parsed json.
+     */
+    private static Object parse(String filepath) throws Exception {
+        try(FileReader reader = new FileReader(filepath)){
+            return new JSONParser().parse(reader);
+        }
+    }
 
     /**
      * loads the data for the action specified by the name from the ACTION_PATH directory and makes it an Action.
@@ -39,22 +65,14 @@ public class JsonIO {
     public static Action loadAction(String actionName) throws Exception {
         String filepath = ACTION_PATH + actionName + ".json"; // turn name into json filename
         // load data into memory
-        Object obj = new JSONParser().parse(new FileReader(filepath));
+        Object obj = parse(filepath);
         // cast as JSONObject
         JSONObject action = (JSONObject) obj;
         // recover action type for calling right constructor
-        String type = (String) action.get("type");
+        String type = ((String) action.get("type")).toLowerCase();
         // recover action data
         String name = (String) action.get("name");
-        Element attribute = switch ((int) action.get("attribute")) {
-            case -1 -> null;
-            case 0 -> new Air();
-            case 1 -> new Earth();
-            case 2 -> new Water();
-            case 3 -> new Fire();
-            default -> {throw new UndefinedKeyException((int) action.get("attribute") +
-                " is not a valid elemental attribute.");}
-        };
+        Element attribute = element(((Number) action.get("attribute")).intValue());
         Category category = switch ((String) action.get("category")){
             case "physical" -> Category.PHYSICAL;
             case "special" -> Category.SPECIAL;
@@ -70,10 +88,10 @@ public class JsonIO {
             default -> {throw new UndefinedKeyException((String) action.get("target") +
                     " is not a valid target");}
         };
-        float multiplier = (float) action.get("multiplier");
-        int accuracy = (int) action.get("accuracy");
-        int cooldown = (int) action.get("cooldown");
-        int duration = (int) action.get("duration");
+        float multiplier = ((Number) action.get("multiplier")).floatValue();
+        int accuracy = ((Number) action.get("accuracy")).intValue();
+        int cooldown = ((Number) action.get("cooldown")).intValue();
+        int duration = ((Number) action.get("duration")).intValue();
         String[] stargets = null; // placeholder
         if(!(type.equals("agress"))) { // only build stats list not Agress action.
             stargets = Helpers.jsonArrayToStringArray((JSONArray) action.get("stats"));
@@ -102,17 +120,17 @@ public class JsonIO {
     public static Item loadItem(String itemName) throws Exception {
         String filepath = ITEM_PATH + itemName + ".json"; // turn name into json filename
         // load data into memory
-        Object obj = new JSONParser().parse(new FileReader(filepath));
+        Object obj = parse(filepath);
         // cast as JSONObject
         JSONObject item = (JSONObject) obj;
         // create Item and return it
         return new Item((String) item.get("name"), (String) item.get("description"),
-            (int) item.get("value"));
+            ((Number) item.get("value")).intValue());
     }
 
     /**
      * loads the data for the monster specified by the name from the MONSTER_PATH directory and makes it
-     * a Monster or a Boss.
+     * a Monster or a Boss. every call reads the file again: prefer ContentRegistry.spawn() in game code.
      * @param hostileName the name of the monster to look for.
      * @return built Monster object or Boss object.
      * @throws java.io.FileNotFoundException when the specified file couldn't be found
@@ -120,25 +138,34 @@ public class JsonIO {
      * @throws org.json.simple.parser.ParseException when the json is empty or not valid.
      */
     public static Monster loadHostile(String hostileName) throws Exception {
+        return loadHostilePrototype(hostileName, null, null).spawn();
+    }
+
+    /**
+     * loads the data for the monster specified by the name from the MONSTER_PATH directory and makes it
+     * a Prototype that can spawn as many Monster or Boss objects as needed.
+     * @param hostileName the name of the monster to look for.
+     * @param items already loaded items by file name. loot missing from it is loaded from ITEM_PATH. can be null.
+     * @param actions already loaded actions by file name. actions missing from it are loaded from ACTION_PATH.
+     * can be null.
+     * @return built Prototype object.
+     * @throws java.io.FileNotFoundException when the specified file couldn't be found
+     * @throws java.io.IOException when reading the specified file failed
+     * @throws org.json.simple.parser.ParseException when the json is empty or not valid.
+     */
+    public static Prototype loadHostilePrototype(String hostileName, Map<String, Item> items,
+                                                 Map<String, Action> actions) throws Exception {
         String filepath = HOSTILES_PATH + hostileName + ".json"; // turn name into json filename
         // load data into memory
-        Object obj = new JSONParser().parse(new FileReader(filepath));
+        Object obj = parse(filepath);
         // cast as JSONObject
         JSONObject hostile = (JSONObject) obj;
         // recover data
         String type = (String) hostile.get("type");
         String name = (String) hostile.get("name");
         String description = (String) hostile.get("description");
-        Element attribute = switch ((int) hostile.get("attribute")) {
-            case -1 -> null;
-            case 0 -> new Air();
-            case 1 -> new Earth();
-            case 2 -> new Water();
-            case 3 -> new Fire();
-            default -> {throw new UndefinedKeyException((int) hostile.get("attribute") +
-                    " is not a valid elemental attribute.");}
-        };
-        int level = (int) hostile.get("level");
+        Element attribute = element(((Number) hostile.get("attribute")).intValue());
+        int level = ((Number) hostile.get("level")).intValue();
         // stats
         int[] stats = Helpers.jsonArrayToIntArray((JSONArray) hostile.get("stats"));
         // loot
@@ -146,19 +173,64 @@ public class JsonIO {
         int i = 0;
         Item[] loot = new Item[ja.size()];
         for(Object o : ja){
-            loot[i++] = loadItem((String) o);
+            Item known = items == null ? null : items.get((String) o);
+            loot[i++] = known != null ? known : loadItem((String) o);
+        }
+        int forms = 1; // regular monsters have no forms defined
+        if (hostile.get("forms") != null){
+            forms = ((Number) hostile.get("forms")).intValue();
         }
-        int forms = (int) hostile.get("forms");
         // stats to enhance
         String[] enhanced = null;
         if ((JSONArray) hostile.get("enhanced") != null){ // convert to String[] if defined
             enhanced = Helpers.jsonArrayToStringArray((JSONArray) hostile.get("enhanced"));
         }
-        // construct hostile mob and return it
+        // actions: [basic, skill, critical] file names, any of them can be null
+        String[] actionIds = new String[3];
+        Action[] known = new Action[3];
+        if(hostile.get("actions") != null){
+            String[] listed = Helpers.jsonArrayToStringArray((JSONArray) hostile.get("actions"));
+            for(i = 0; i < listed.length && i < actionIds.length; i++){
+                if(listed[i] == null)
+                    continue;
+                actionIds[i] = listed[i];
+                known[i] = actions != null && actions.get(listed[i]) != null ? actions.get(listed[i]) :
+                    loadAction(listed[i]);
+            }
+        }
+        // tactics: {feature: weight}, missing features weigh 0
+        Tactics tactics = Tactics.DEFAULT;
+        if(hostile.get("tactics") != null){
+            float[] weights = new float[Tactics.FEATURES.length];
+            for(Object o : ((JSONObject) hostile.get("tactics")).entrySet()){
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                weights[Tactics.feature((String) entry.getKey())] = ((Number) entry.getValue()).floatValue();
+            }
+            tactics = new Tactics(weights);
+        }
+        // construct hostile prototype and return it
         return switch(type){
-            case "monster" -> new Monster(name, description, attribute, level, stats, loot);
-            case "boss" -> new Boss(name, description, attribute, level, stats, loot, forms, enhanced);
+            case "monster" -> new Prototype(false, name, description, attribute, level, stats, loot, forms, enhanced,
+                actionIds, known, tactics);
+            case "boss" -> new Prototype(true, name, description, attribute, level, stats, loot, forms, enhanced,
+                actionIds, known, tactics);
             default -> {throw new UndefinedKeyException(type + "is not a valid Action type.");}
         };
     }
+
+    /**
+     * loads the expression of the formula specified by the name from the FORMULA_PATH directory.
+     * @param formulaName the name of the formula to look for.
+     * @return the expression of the formula.
+     * @throws java.io.FileNotFoundException when the specified file couldn't be found
+     * @throws java.io.IOException when reading the specified file failed
+     * @throws org.json.simple.parser.ParseException when the json is empty or not valid.
+     */
+    public static String loadFormula(String formulaName) throws Exception {
+        String filepath = FORMULA_PATH + formulaName + ".json"; // turn name into json filename
+        // load data into memory
+        Object obj = parse(filepath);
+        // cast as JSONObject and return the expression
+        return (String) ((JSONObject) obj).get("expression");
+    }
 }
@@ -0,0 +1,96 @@
+package Customs.Utilities;
+
+/** RandomStream object:
+ * seeded and splittable pseudo random number generator. it uses the SplitMix64 algorithm that backs
+ * java.util.SplittableRandom but it can be reseeded in place so an engine can start each battle from its
+ * own seed without allocating a new generator. a stream fully determines its outputs from its seed: the
+ * same seed always gives the same rolls whatever thread draws them. streams are not thread safe and must
+ * be confined to one thread; use split() or mix() to derive independent streams for other threads.
+ */
+public class RandomStream {
+    // SplitMix64 constants
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    // attributes
+    private long seed; // seed the stream was last started from
+    private long state;
+
+    /** constructor:
+     * expects the seed to start the stream from.
+     * @param seed any 64-bit value.
+     */
+    public RandomStream(long seed){
+        this.reseed(seed);
+    }
+
+    /**
+     * derives the seed of the "index"th child of a master seed. children of the same master seed are
+     * independent streams and don't depend on the order they are derived in.
+     * @param master the master seed.
+     * @param index the index of the child.
+     * @return the seed of the child stream.
+     */
+    public static long mix(long master, long index){
+        return mix64(master + (index + 1) * GOLDEN_GAMMA);
+    }
+    /**
+     * SplitMix64 finalizer: scrambles the bits of z.
+     */
+    private static long mix64(long z){
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // getters
+    /**
+     * @return the seed the stream was last started from.
+     */
+    public long seed(){ return this.seed; }
+
+    // setters
+    /**
+     * restarts the stream from a new seed.
+     * @param seed any 64-bit value.
+     */
+    public void reseed(long seed){
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    // draws
+    /**
+     * @return the next 64 random bits.
+     */
+    public long nextLong(){
+        this.state += GOLDEN_GAMMA;
+        return mix64(this.state);
+    }
+    /**
+     * @param bound the exclusive upper bound. must be positive.
+     * @return a uniformly distributed int between 0 (inclusive) and bound (exclusive).
+     */
+    public int nextInt(int bound){
+        if(bound <= 0){
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        // rejection of the biased top values, like SplittableRandom
+        int r = (int) (this.nextLong() >>> 33);
+        int m = bound - 1;
+        if((bound & m) == 0) // power of two
+            return (int) ((bound * (long) r) >> 31);
+        for(int u = r; u - (r = u % bound) + m < 0; u = (int) (this.nextLong() >>> 33));
+        return r;
+    }
+    /**
+     * @return a uniformly distributed double between 0 (inclusive) and 1 (exclusive).
+     */
+    public double nextDouble(){
+        return (this.nextLong() >>> 11) * 0x1.0p-53;
+    }
+    /**
+     * @return a new stream, independent from this one, whose seed is drawn from this one.
+     */
+    public RandomStream split(){
+        return new RandomStream(mix64(this.nextLong()));
+    }
+}
@@ -0,0 +1,351 @@
+package Customs.Utilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import Customs.Exceptions.UndefinedKeyException;
+import WorldComponents.Basics.Body;
+import WorldComponents.Basics.Collectibles.Gear;
+import WorldComponents.Basics.Collectibles.Item;
+import WorldComponents.Basics.Defines;
+import WorldComponents.Basics.Defines.BodySlot;
+import WorldComponents.Basics.Defines.GearReq;
+import WorldComponents.Basics.Defines.GearType;
+import WorldComponents.Basics.Jobs;
+import WorldComponents.Basics.Jobs.Job;
+import WorldComponents.Basics.Stats.StatSet;
+import WorldComponents.Basics.StorageKits.Bag;
+import WorldComponents.Mobs.Explorer;
+
+/** SaveFile object:
+ * versioned binary save format of an explorer's progress. every string of a save (the explorer's name,
+ * its job, the ids of its items) is interned once in a string table at the head of the file and the
+ * rest of the save refers to it by index. registered content is saved as its ContentRegistry id and
+ * decoded from the registry when loading so no JSON is ever parsed; items the registry doesn't know,
+ * like gear built in code, are saved inline. a file is laid out as follows:
+ *  header: MAGIC, VERSION, number of strings
+ *  string table: the strings in id order
+ *  explorer: name, level, progression, explorer rank level and progression
+ *  stats: count, max values, current values
+ *  job: name, rank level and progression
+ *  body: one item per BodySlot in BodySlot order
+ *  bag: number of stacks, then the item and count of each stack in bag order (version 1: number of
+ *  items, then each item)
+ *  wallet: balance
+ * an item is a tag: EMPTY; REGISTERED followed by its id; ITEM followed by its name, description and
+ * price; GEAR followed by the same plus its type, requirement and stats. saving writes a temporary file
+ * first and moves it over the save so that a crashing process never leaves a half written save behind.
+ * the operating system may still hold the data in memory after the move: only a durable save, which
+ * forces the file and the move to the disk, also survives a power loss.
+ */
+public class SaveFile {
+    // file format
+    private static final int MAGIC = 0x52444353; // "RDCS"
+    private static final int VERSION = 2; // 2: stacked bag
+    // item tags
+    private static final int EMPTY = 0;
+    private static final int REGISTERED = 1;
+    private static final int ITEM = 2;
+    private static final int GEAR = 3;
+
+    /** StringWriter interface:
+     * how the strings of an item are written: by string table index in a save, inline in a journal.
+     */
+    interface StringWriter{
+        void write(DataOutputStream out, String s) throws IOException;
+    }
+    /** StringReader interface:
+     * reads back the strings written by a StringWriter.
+     */
+    interface StringReader{
+        String read(DataInputStream in) throws IOException;
+    }
+
+    /** StringTable object:
+     * interns the strings of a save being written.
+     */
+    private static class StringTable{
+        private final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+        private final ArrayList<String> strings = new ArrayList<String>();
+
+        /**
+         * @param s the string to intern.
+         * @return the id of the string.
+         */
+        int id(String s){
+            Integer id = this.ids.get(s);
+            if(id == null){
+                id = this.strings.size();
+                this.ids.put(s, id);
+                this.strings.add(s);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * encodes an explorer into the bytes of a save.
+     * @param explorer the explorer to save.
+     * @param content the registry its items come from.
+     * @return the save.
+     * @throws Exception if the explorer's body is invalid.
+     */
+    public static byte[] encode(Explorer explorer, ContentRegistry content) throws Exception {
+        StringTable table = new StringTable();
+        ByteArrayOutputStream records = new ByteArrayOutputStream(512);
+        DataOutputStream out = new DataOutputStream(records);
+        // explorer
+        out.writeInt(table.id(explorer.name()));
+        out.writeInt(explorer.level().current());
+        out.writeInt(explorer.level().currentProg());
+        out.writeInt(explorer.rank().current());
+        out.writeInt(explorer.rank().currentProg());
+        // stats
+        StatSet stats = explorer.stats();
+        int[] values = new int[Defines.STATS.length];
+        out.writeByte(values.length);
+        stats.readMaxes(values, 0);
+        for(int value : values){
+            out.writeInt(value);
+        }
+        stats.readCurrents(values, 0);
+        for(int value : values){
+            out.writeInt(value);
+        }
+        // job
+        Job job = explorer.job();
+        out.writeInt(table.id(job.name()));
+        out.writeInt(job.rank().current());
+        out.writeInt(job.rank().currentProg());
+        // body
+        Body body = explorer.body();
+        StringWriter strings = (stream, s) -> stream.writeInt(table.id(s));
+        for(BodySlot slot : BodySlot.values()){
+            writeItem(out, strings, content, body.wearsAt(slot));
+        }
+        // bag
+        Bag bag = explorer.bag();
+        out.writeShort(bag.stackCount());
+        for(int i = 0; i < bag.stackCount(); i++){
+            writeItem(out, strings, content, bag.item(i));
+            out.writeShort(bag.count(i));
+        }
+        // wallet
+        out.writeInt(explorer.wallet().balance());
+        out.flush();
+
+        ByteArrayOutputStream save = new ByteArrayOutputStream(records.size() + 256);
+        DataOutputStream file = new DataOutputStream(save);
+        file.writeInt(MAGIC);
+        file.writeInt(VERSION);
+        file.writeInt(table.strings.size());
+        for(String s : table.strings){
+            file.writeUTF(s);
+        }
+        records.writeTo(file);
+        file.flush();
+        return save.toByteArray();
+    }
+    /**
+     * writes an item of the explorer: nothing but a tag if it is null, its id if it is registered content and
+     * all its fields else wise.
+     * @param out where to write.
+     * @param strings how to write strings.
+     * @param content the registry the item may come from.
+     * @param item the item or null.
+     */
+    static void writeItem(DataOutputStream out, StringWriter strings, ContentRegistry content, Item item)
+        throws IOException
+    {
+        if(item == null){
+            out.writeByte(EMPTY);
+            return;
+        }
+        String id = content.itemId(item);
+        if(id != null){
+            out.writeByte(REGISTERED);
+            strings.write(out, id);
+            return;
+        }
+        out.writeByte(item instanceof Gear ? GEAR : ITEM);
+        strings.write(out, item.name());
+        strings.write(out, item.describe());
+        out.writeInt(item.cost());
+        if(item instanceof Gear){
+            Gear gear = (Gear) item;
+            out.writeByte(gear.type().ordinal());
+            out.writeByte(gear.reqs().ordinal());
+            int[] values = gear.stats().getSetMaxes();
+            out.writeByte(values.length);
+            for(int value : values){
+                out.writeInt(value);
+            }
+        }
+    }
+
+    /**
+     * decodes an explorer from the bytes of a save.
+     * @param save the save.
+     * @param content the registry its items come from.
+     * @return the saved explorer.
+     * @throws IOException if the bytes are not a save of a supported version.
+     * @throws UndefinedKeyException if the save refers to content the registry doesn't have.
+     */
+    public static Explorer decode(byte[] save, ContentRegistry content) throws Exception {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(save));
+        if(in.readInt() != MAGIC)
+            throw new IOException("not a save file");
+        int version = in.readInt();
+        if(version < 1 || version > VERSION)
+            throw new IOException("save version " + version + " is not supported");
+        String[] strings = new String[in.readInt()];
+        for(int i = 0; i < strings.length; i++){
+            strings[i] = in.readUTF();
+        }
+        // explorer
+        String name = strings[in.readInt()];
+        int level = in.readInt();
+        int progression = in.readInt();
+        int rank = in.readInt();
+        int rankProgression = in.readInt();
+        // stats
+        int[] maxes = new int[in.readUnsignedByte()];
+        int[] currents = new int[maxes.length];
+        for(int i = 0; i < maxes.length; i++){
+            maxes[i] = in.readInt();
+        }
+        for(int i = 0; i < currents.length; i++){
+            currents[i] = in.readInt();
+        }
+        // job
+        Job job = Jobs.byName(strings[in.readInt()]);
+        job.rank().restore(in.readInt(), in.readInt());
+
+        Explorer explorer = new Explorer(name, level, maxes, job);
+        explorer.level().restore(level, progression);
+        explorer.rank().restore(rank, rankProgression);
+        explorer.stats().writeCurrents(currents, 0);
+        explorer.healthCheck();
+        // body
+        StringReader table = stream -> strings[stream.readInt()];
+        for(BodySlot slot : BodySlot.values()){
+            explorer.body().wear(slot, (Gear) readItem(in, table, content));
+        }
+        // bag
+        int entries = in.readUnsignedShort();
+        for(int i = 0; i < entries; i++){
+            Item item = readItem(in, table, content);
+            explorer.bag().store(item, version == 1 ? 1 : in.readUnsignedShort());
+        }
+        // wallet
+        explorer.wallet().deposit(in.readInt());
+        return explorer;
+    }
+    /**
+     * reads an item written by writeItem().
+     * @param in where to read.
+     * @param strings how to read strings.
+     * @param content the registry the item may come from.
+     * @return the item or null.
+     */
+    static Item readItem(DataInputStream in, StringReader strings, ContentRegistry content) throws Exception {
+        int tag = in.readUnsignedByte();
+        switch(tag){
+            case EMPTY:
+                return null;
+            case REGISTERED:
+                return content.item(strings.read(in));
+            case ITEM:
+            case GEAR:
+                String name = strings.read(in);
+                String description = strings.read(in);
+                int price = in.readInt();
+                if(tag == ITEM)
+                    return new Item(name, description, price);
+                GearType type = GearType.values()[in.readUnsignedByte()];
+                GearReq req = GearReq.values()[in.readUnsignedByte()];
+                int[] values = new int[in.readUnsignedByte()];
+                for(int i = 0; i < values.length; i++){
+                    values[i] = in.readInt();
+                }
+                return new Gear(name, description, price, type, values, req);
+            default:
+                throw new IOException("unknown item tag " + tag);
+        }
+    }
+
+    /**
+     * saves an explorer to a file. the save is replaced atomically but isn't forced to the disk.
+     * @param explorer the explorer to save.
+     * @param content the registry its items come from.
+     * @param path the path of the save.
+     * @throws Exception if the file could not be written.
+     */
+    public static void save(Explorer explorer, ContentRegistry content, String path) throws Exception {
+        save(explorer, content, path, false);
+    }
+    /**
+     * saves an explorer to a file.
+     * @param explorer the explorer to save.
+     * @param content the registry its items come from.
+     * @param path the path of the save.
+     * @param durable whether to force the save to the disk before returning.
+     * @throws Exception if the file could not be written.
+     */
+    public static void save(Explorer explorer, ContentRegistry content, String path, boolean durable)
+            throws Exception {
+        replace(Paths.get(path), encode(explorer, content), durable);
+    }
+    /**
+     * writes "data" to a temporary file and moves it over "target" in one step.
+     * @param target the file to replace.
+     * @param data the new content of the file.
+     * @param durable whether to force the data and the move to the disk: the data before the move so
+     * that the moved file is never empty, the folder after it so that the move itself isn't lost.
+     * @throws IOException if the file could not be written.
+     */
+    static void replace(Path target, byte[] data, boolean durable) throws IOException {
+        Path temporary = Paths.get(target + ".tmp");
+        try(FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while(buffer.hasRemaining()){
+                file.write(buffer);
+            }
+            if(durable)
+                file.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if(durable){
+            Path folder = target.toAbsolutePath().getParent();
+            try(FileChannel directory = FileChannel.open(folder, StandardOpenOption.READ)){
+                directory.force(true);
+            }catch (IOException err){
+                // some systems (Windows) can't open a folder to force it: the move is left to the system
+            }
+        }
+    }
+    /**
+     * loads an explorer from a file.
+     * @param path the path of the save.
+     * @param content the registry its items come from.
+     * @return the saved explorer.
+     * @throws Exception if the file could not be read or is not a valid save.
+     */
+    public static Explorer load(String path, ContentRegistry content) throws Exception {
+        return decode(Files.readAllBytes(Paths.get(path)), content);
+    }
+}
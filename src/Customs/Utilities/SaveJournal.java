@@ -0,0 +1,505 @@
+package Customs.Utilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+import WorldComponents.Basics.Collectibles.Gear;
+import WorldComponents.Basics.Collectibles.Item;
+import WorldComponents.Basics.Defines;
+import WorldComponents.Basics.Defines.BodySlot;
+import WorldComponents.Mobs.Explorer;
+
+/** SaveJournal object:
+ * incremental save of an explorer: a full snapshot in the SaveFile format plus an append-only journal of
+ * the changes made since. the changes go through the journal (store(), deposit(), putOn()...) which
+ * applies them to the explorer and appends a small record to the journal, so a save costs a few bytes per
+ * action instead of a full rewrite. records are buffered and made durable in batches: every SYNC_BATCH
+ * records or when sync() is called, eg: on every block transition. once the journal grows past
+ * COMPACT_SIZE, a new snapshot is written in the background and the old journal is dropped.
+ * the files of a save at "path" are path.G.snap and path.G.journal where G is the generation of the
+ * snapshot; a journal of generation G holds the changes made after snapshot G. compaction opens journal
+ * G + 1 right away, then writes snapshot G + 1 and only then deletes the files of generation G, so a crash
+ * at any point leaves a snapshot and the journals that follow it. recover() loads the newest snapshot and
+ * replays the journals of its generation and up. each record is checksummed and a torn record at the end
+ * of a journal, left by a crash in the middle of a write, is ignored.
+ * a journal must be used by one thread, the game thread; only the compaction runs on a daemon thread.
+ */
+public class SaveJournal {
+    // tuning
+    public static final int SYNC_BATCH = 32; // records buffered before they are forced to the disk
+    public static final long COMPACT_SIZE = 64 * 1024; // journal size that triggers a compaction
+    // file format
+    private static final int MAGIC = 0x52444A4C; // "RDJL"
+    private static final int VERSION = 2; // 2: TAKE_OUT refers to bag stacks
+    private static final int HEADER_SIZE = 16; // magic, version, generation
+    // record types
+    private static final int STORE = 1; // item
+    private static final int TAKE_OUT = 2; // bag stack
+    private static final int DEPOSIT = 3; // sum
+    private static final int WITHDRAW = 4; // sum
+    private static final int EARN = 5; // experience
+    private static final int RANK_UP = 6; // floor completed
+    private static final int MASTER = 7; // job mastery
+    private static final int PUT_ON = 8; // gear
+    private static final int TAKE_OFF = 9; // BodySlot ordinal
+    private static final int STATS = 10; // current stats
+    // records hold their strings inline
+    private static final SaveFile.StringWriter INLINE_WRITER = (stream, s) -> stream.writeUTF(s);
+    private static final SaveFile.StringReader INLINE_READER = stream -> stream.readUTF();
+    // attributes
+    private final String path;
+    private final Explorer explorer;
+    private final ContentRegistry content;
+    private final ExecutorService compactor; // one daemon thread
+    private final ByteArrayOutputStream record; // payload of the record being written
+    private final DataOutputStream out;
+    private final ByteBuffer pending; // records not written yet
+    private final CRC32 crc;
+    private final int[] stats;
+    private FileChannel journal;
+    private long generation;
+    private long size; // bytes of the current journal
+    private int batched; // records in pending
+    private Future<?> compaction; // last compaction, if any
+
+    /** constructor:
+     * opens the journal of generation "generation" for appending. use create() or recover().
+     */
+    private SaveJournal(String path, Explorer explorer, ContentRegistry content, long generation) throws IOException {
+        this.path = path;
+        this.explorer = explorer;
+        this.content = content;
+        this.compactor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "save-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.record = new ByteArrayOutputStream(256);
+        this.out = new DataOutputStream(this.record);
+        this.pending = ByteBuffer.allocate(64 * 1024);
+        this.crc = new CRC32();
+        this.stats = new int[Defines.STATS.length];
+        this.generation = generation;
+        this.openJournal();
+        this.compaction = null;
+    }
+
+    /**
+     * starts a new save: writes a snapshot of the explorer and opens an empty journal.
+     * @param path the base path of the save files.
+     * @param explorer the explorer to save.
+     * @param content the registry its items come from.
+     * @return the journal to record the explorer's changes with.
+     * @throws Exception if the files could not be written.
+     */
+    public static SaveJournal create(String path, Explorer explorer, ContentRegistry content) throws Exception {
+        // past every file of the save so that no older journal is ever replayed onto this snapshot
+        long generation = Math.max(newest(path, ".snap"), newest(path, ".journal")) + 1;
+        // on the disk before the older generations it replaces are deleted
+        SaveFile.save(explorer, content, snapshotPath(path, generation), true);
+        SaveJournal journal = new SaveJournal(path, explorer, content, generation);
+        journal.cleanUp(generation);
+        return journal;
+    }
+    /**
+     * recovers a save: loads the newest snapshot and replays the journals that follow it.
+     * @param path the base path of the save files.
+     * @param content the registry the items come from.
+     * @return the journal of the recovered explorer, ready to record its next changes.
+     * @throws Exception if there is no save at path or it could not be read.
+     */
+    public static SaveJournal recover(String path, ContentRegistry content) throws Exception {
+        long generation = newest(path, ".snap");
+        if(generation < 0)
+            throw new IOException("no save at " + path);
+        Explorer explorer = SaveFile.load(snapshotPath(path, generation), content);
+        long last = Math.max(generation, newest(path, ".journal"));
+        for(long g = generation; g <= last; g++){
+            File file = new File(journalPath(path, g));
+            if(file.isFile())
+                replay(explorer, content, Files.readAllBytes(file.toPath()));
+        }
+        // the recovered state becomes the new snapshot so that torn records are gone for good
+        return create(path, explorer, content);
+    }
+
+    // getters
+    /**
+     * @return the explorer the journal records.
+     */
+    public Explorer explorer(){ return this.explorer; }
+    /**
+     * @return the generation of the current snapshot.
+     */
+    public long generation(){ return this.generation; }
+    /**
+     * @return the size in bytes of the current journal, records not synced yet included.
+     */
+    public long size(){ return this.size + this.pending.position(); }
+
+    // changes
+    /**
+     * stores an item in the explorer's bag.
+     * @param item the item to store.
+     * @return true if the item was stored; false if the bag was full.
+     */
+    public boolean store(Item item) throws Exception {
+        if(!this.explorer.bag().store(item))
+            return false;
+        this.begin(STORE);
+        SaveFile.writeItem(this.out, INLINE_WRITER, this.content, item);
+        this.end();
+        return true;
+    }
+    /**
+     * takes an item out of the explorer's bag.
+     * @param index the index of the item's stack in the bag.
+     * @return the item or null if the bag is empty.
+     */
+    public Item takeOut(int index) throws Exception {
+        Item item = this.explorer.bag().takeOut(index);
+        if(item != null){
+            this.begin(TAKE_OUT);
+            this.out.writeShort(index);
+            this.end();
+        }
+        return item;
+    }
+    /**
+     * adds money to the explorer's wallet.
+     * @param sum the amount to deposit.
+     */
+    public void deposit(int sum) throws Exception {
+        this.explorer.wallet().deposit(sum);
+        this.begin(DEPOSIT);
+        this.out.writeInt(sum);
+        this.end();
+    }
+    /**
+     * takes money out of the explorer's wallet.
+     * @param sum the amount to withdraw.
+     * @return true if the sum was withdrawn.
+     */
+    public boolean withdraw(int sum) throws Exception {
+        int before = this.explorer.wallet().balance();
+        this.explorer.wallet().withdraw(sum);
+        if(this.explorer.wallet().balance() == before)
+            return false;
+        this.begin(WITHDRAW);
+        this.out.writeInt(sum);
+        this.end();
+        return true;
+    }
+    /**
+     * gives the explorer experience.
+     * @param amount the experience earned.
+     * @return true if the explorer leveled up.
+     */
+    public boolean earn(int amount) throws Exception {
+        boolean levelUp = this.explorer.level().earn(amount);
+        this.begin(EARN);
+        this.out.writeInt(amount);
+        this.end();
+        return levelUp;
+    }
+    /**
+     * records a completely explored floor in the explorer's rank.
+     * @return true if the letter rank went up.
+     */
+    public boolean rankUp() throws Exception {
+        boolean rankUp = this.explorer.rank().earn(100);
+        this.begin(RANK_UP);
+        this.end();
+        return rankUp;
+    }
+    /**
+     * gives the explorer's job mastery.
+     * @param mastery the mastery earned.
+     * @return true if the job's rank went up.
+     */
+    public boolean master(int mastery) throws Exception {
+        boolean rankUp = this.explorer.job().master(mastery);
+        this.begin(MASTER);
+        this.out.writeInt(mastery);
+        this.end();
+        return rankUp;
+    }
+    /**
+     * puts a gear on the explorer's body.
+     * @param gear the gear to equip.
+     * @return the gears that had to be taken off.
+     */
+    public Gear[] putOn(Gear gear) throws Exception {
+        Gear[] removed = this.explorer.body().putOn(gear);
+        this.begin(PUT_ON);
+        SaveFile.writeItem(this.out, INLINE_WRITER, this.content, gear);
+        this.end();
+        return removed;
+    }
+    /**
+     * takes the gear off a slot of the explorer's body.
+     * @param slot the slot to empty.
+     * @return the gear that was there or null.
+     */
+    public Gear takeOff(BodySlot slot) throws Exception {
+        Gear gear = this.explorer.body().takeOff(slot);
+        this.begin(TAKE_OFF);
+        this.out.writeByte(slot.ordinal());
+        this.end();
+        return gear;
+    }
+    /**
+     * records the current stats of the explorer, eg: its HP after a battle.
+     */
+    public void recordStats() throws Exception {
+        this.explorer.stats().readCurrents(this.stats, 0);
+        this.begin(STATS);
+        this.out.writeByte(this.stats.length);
+        for(int value : this.stats){
+            this.out.writeInt(value);
+        }
+        this.end();
+    }
+
+    // records
+    /**
+     * starts a record.
+     */
+    private void begin(int type) throws IOException {
+        this.record.reset();
+        this.out.writeByte(type);
+    }
+    /**
+     * frames the record (length, type and payload, checksum) and queues it. syncs every SYNC_BATCH records
+     * and compacts when the journal got too long.
+     */
+    private void end() throws Exception {
+        this.out.flush();
+        byte[] bytes = this.record.toByteArray();
+        if(this.pending.remaining() < bytes.length + 8)
+            this.write();
+        this.crc.reset();
+        this.crc.update(bytes, 0, bytes.length);
+        this.pending.putInt(bytes.length);
+        this.pending.put(bytes);
+        this.pending.putInt((int) this.crc.getValue());
+        if(++this.batched >= SYNC_BATCH)
+            this.sync();
+        if(this.size >= COMPACT_SIZE)
+            this.compact();
+    }
+    /**
+     * writes the queued records to the journal without forcing them to the disk.
+     */
+    private void write() throws IOException {
+        this.pending.flip();
+        while(this.pending.hasRemaining()){
+            this.size += this.journal.write(this.pending);
+        }
+        this.pending.clear();
+    }
+    /**
+     * makes every recorded change durable: the queued records are written and forced to the disk.
+     * @throws IOException if the journal could not be written.
+     */
+    public void sync() throws IOException {
+        if(this.batched == 0 && this.pending.position() == 0)
+            return;
+        this.write();
+        this.journal.force(false);
+        this.batched = 0;
+    }
+
+    // compaction
+    /**
+     * starts a new generation: the current state of the explorer is encoded right away, the records that
+     * follow go to a new journal and the snapshot is written in the background.
+     */
+    public void compact() throws Exception {
+        if(this.compaction != null && !this.compaction.isDone())
+            return; // one at a time
+        this.sync();
+        byte[] snapshot = SaveFile.encode(this.explorer, this.content);
+        this.journal.close();
+        long next = this.generation + 1;
+        this.generation = next;
+        this.openJournal();
+        this.compaction = this.compactor.submit(() -> {
+            SaveFile.replace(Paths.get(snapshotPath(this.path, next)), snapshot, true);
+            this.cleanUp(next);
+            return null;
+        });
+    }
+    /**
+     * syncs the journal, waits for a running compaction and releases the files.
+     * @throws Exception if the journal or the last snapshot could not be written.
+     */
+    public void close() throws Exception {
+        this.sync();
+        this.journal.close();
+        if(this.compaction != null)
+            this.compaction.get();
+        this.compactor.shutdown();
+    }
+
+    // files
+    /**
+     * creates the journal of the current generation.
+     */
+    private void openJournal() throws IOException {
+        this.journal = FileChannel.open(Paths.get(journalPath(this.path, this.generation)), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(this.generation).flip();
+        this.journal.write(header);
+        this.journal.force(false);
+        this.size = HEADER_SIZE;
+        this.batched = 0;
+        this.pending.clear();
+    }
+    /**
+     * deletes the files of the generations older than "generation".
+     */
+    private void cleanUp(long generation) throws IOException {
+        for(File file : saveFiles(this.path)){
+            long g = generationOf(this.path, file.getName());
+            if(g >= 0 && g < generation)
+                Files.deleteIfExists(file.toPath());
+        }
+    }
+    private static String snapshotPath(String path, long generation){ return path + "." + generation + ".snap"; }
+    private static String journalPath(String path, long generation){ return path + "." + generation + ".journal"; }
+    /**
+     * @return the files of the save at path.
+     */
+    private static File[] saveFiles(String path){
+        File base = new File(path).getAbsoluteFile();
+        String prefix = base.getName() + ".";
+        File[] files = base.getParentFile().listFiles((dir, name) -> name.startsWith(prefix));
+        return files == null ? new File[0] : files;
+    }
+    /**
+     * @return the generation of a file of the save at path or -1 if it isn't one.
+     */
+    private static long generationOf(String path, String name){
+        String rest = name.substring(new File(path).getName().length() + 1);
+        int dot = rest.indexOf('.');
+        if(dot < 0 || !(rest.endsWith(".snap") || rest.endsWith(".journal")))
+            return -1;
+        try{
+            return Long.parseLong(rest.substring(0, dot));
+        }catch (NumberFormatException err){
+            return -1;
+        }
+    }
+    /**
+     * @return the newest generation of the files of the save ending with "extension" or -1 if there is none.
+     */
+    private static long newest(String path, String extension){
+        long newest = -1;
+        for(File file : saveFiles(path)){
+            if(file.getName().endsWith(extension))
+                newest = Math.max(newest, generationOf(path, file.getName()));
+        }
+        return newest;
+    }
+
+    // replay
+    /**
+     * applies the valid records of a journal to an explorer. replay stops at the first torn or corrupted
+     * record. version 1 journals are replayed as long as they hold no TAKE_OUT record: those refer to a bag
+     * index from before items were stacked and can't be mapped to a stack.
+     * @param explorer the explorer loaded from the snapshot the journal follows.
+     * @param content the registry the items come from.
+     * @param journal the bytes of the journal.
+     */
+    private static void replay(Explorer explorer, ContentRegistry content, byte[] journal) throws Exception {
+        ByteBuffer in = ByteBuffer.wrap(journal);
+        if(journal.length < HEADER_SIZE || in.getInt() != MAGIC)
+            return; // never got its header
+        int version = in.getInt();
+        if(version < 1 || version > VERSION)
+            throw new IOException("journal version " + version + " is not supported");
+        in.getLong(); // generation
+        CRC32 crc = new CRC32();
+        ArrayList<byte[]> records = new ArrayList<byte[]>();
+        while(in.remaining() >= 4){
+            int length = in.getInt();
+            if(length <= 0 || in.remaining() < length + 4)
+                break; // torn
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            crc.reset();
+            crc.update(bytes, 0, length);
+            if(in.getInt() != (int) crc.getValue())
+                break; // corrupted
+            records.add(bytes);
+        }
+        for(byte[] bytes : records){
+            apply(explorer, content, version, new DataInputStream(new ByteArrayInputStream(bytes)));
+        }
+    }
+    /**
+     * applies one record to an explorer.
+     * @throws IOException if the record is unknown or is a TAKE_OUT record of a version 1 journal.
+     */
+    private static void apply(Explorer explorer, ContentRegistry content, int version, DataInputStream in)
+            throws Exception {
+        int type = in.readUnsignedByte();
+        switch(type){
+            case STORE:
+                explorer.bag().store(SaveFile.readItem(in, INLINE_READER, content));
+                break;
+            case TAKE_OUT:
+                if(version < 2)
+                    throw new IOException("version 1 journal records taking out a bag index, not a stack");
+                explorer.bag().takeOut(in.readUnsignedShort());
+                break;
+            case DEPOSIT:
+                explorer.wallet().deposit(in.readInt());
+                break;
+            case WITHDRAW:
+                explorer.wallet().withdraw(in.readInt());
+                break;
+            case EARN:
+                explorer.level().earn(in.readInt());
+                break;
+            case RANK_UP:
+                explorer.rank().earn(100);
+                break;
+            case MASTER:
+                explorer.job().master(in.readInt());
+                break;
+            case PUT_ON:
+                explorer.body().putOn((Gear) SaveFile.readItem(in, INLINE_READER, content));
+                break;
+            case TAKE_OFF:
+                explorer.body().takeOff(BodySlot.values()[in.readUnsignedByte()]);
+                break;
+            case STATS:
+                int[] currents = new int[in.readUnsignedByte()];
+                for(int i = 0; i < currents.length; i++){
+                    currents[i] = in.readInt();
+                }
+                explorer.stats().writeCurrents(currents, 0);
+                explorer.healthCheck();
+                break;
+            default:
+                throw new IOException("unknown journal record " + type);
+        }
+    }
+}
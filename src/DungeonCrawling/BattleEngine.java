@@ -1,52 +1,116 @@
 package DungeonCrawling;
 
 import java.util.ArrayList;
-import java.util.Queue;
-import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
+import Customs.Exceptions.NegativeValueArgumentException;
 import Customs.Exceptions.NullActionArgumentException;
-import Customs.Exceptions.UndefinedKeyException;
-import Customs.Utilities.JsonIO;
+import Customs.Utilities.AliasTable;
+import Customs.Utilities.ContentRegistry;
+import Customs.Utilities.HostilePool;
+import Customs.Utilities.RandomStream;
+import WorldComponents.Basics.Actions.*;
+import WorldComponents.Basics.Collectibles.Item;
 import WorldComponents.Basics.Defines.BattleType;
-import WorldComponents.Basics.Unit;
+import WorldComponents.Basics.Defines.StatId;
+import WorldComponents.Basics.Elements;
 import WorldComponents.Mobs.Hostiles.Monster;
-import WorldComponents.Mobs.Hostiles.Boss;
 import WorldComponents.Mobs.Explorer;
 
-/** BattleEngine package:
- * this package contains methods that will be used to compute a fight between an explorer and a group of
+/** BattleEngine object:
+ * this object contains methods that will be used to compute a fight between an explorer and a group of
  * monsters. battles are automatic meaning once they start they end by the defeat of one party. the flow
  * of the battle is ruled by the engine. It determines the order of actions of the parties involved and
  * what actions they perform everytime it is their turn to act. it applies the effect of the actions and
  * replace them in the fight order list. at the end of the fight, it awards experience and loot to the
  * wining explorer. the actual happens in BattleEngine.encounter() method but other helpers and setters
  * will be defined here as well.
+ * each BattleEngine instance owns its floor setup, its parties, its combat state and its random number
+ * streams. every battle draws all its rolls (party, accuracy, targets and loot) from a stream started from
+ * a single 64-bit seed, so a battle can be replayed exactly from its seed and player. when a BattleLog is
+ * set, every step of the battles is also written to it as a binary record. an instance is meant to be
+ * confined to the thread that runs its battles: it is not synchronized but it shares no mutable state with
+ * other instances so as many battles as there are cores can be resolved at the same time by using one
+ * engine per thread.
  */
 public class BattleEngine {
     // attributes
     // floor setup
-    private static final int MAX_NUM_OF_MONSTERS = 5; // how many monsters can attack at the same time
+    static final int MAX_NUM_OF_MONSTERS = 5; // how many monsters can attack at the same time
     private static final int CHANCES_OF_ADDITIONAL = 10; // the chances of spawning one more monster per danger level
-    private static int dangerLevel = 1; // how dangerous the floor is
-    private static String[] hostilesList = null; // list of all regular monsters
-    private static int[] hostilesChances = null; // chances of encounter of each
-    private static String boss = null; // boss monster (singleton)
-    private static Explorer player = null; // to store the player
+    static final int MAX_TURNS = 200; // a battle that lasts longer than this is lost by the explorer
+    private static final int EXP_PER_LEVEL = 20; // experience awarded per level of each defeated monster
+    private static final int CHANCES_OF_DROP = 50; // the chances of a defeated monster dropping an item
+    // used by units that were not given any action
+    private static final Action STRIKE = new Agress("Strike", null, Category.PHYSICAL, Target.OPPT, 1.0f,
+        95, 0, 0, "Plain attack of a unit that knows no technique.");
+    private int dangerLevel; // how dangerous the floor is
+    private String[] hostilesList; // list of all regular monsters
+    private int[] hostilesChances; // chances of encounter of each
+    private AliasTable spawnTable; // built from the two above once per floor
+    private String boss; // boss monster (singleton)
+    private String[] party; // fixed party fought instead of a spawned one. null when parties are spawned
+    private Explorer player; // to store the player
     // battle setup
-    private static ArrayList<Monster> hostiles = null;
-    private static BattleType battleType = BattleType.MONSTER; // type of battle
-    private static Queue<Unit> turnOrder = null;
+    private final ArrayList<Monster> hostiles;
+    private BattleType battleType; // type of battle
+    private final CombatState state; // reused by every battle of this engine
+    private final RandomStream seeds; // draws the seed of each battle
+    private final RandomStream rng; // rolls of the current battle
+    private ContentRegistry content; // where hostiles are spawned from
+    private HostilePool pool; // recycles the hostiles of past battles
+    private Formulas formulas; // how actions are resolved
+    private final double[] values; // variables of the formulas, reused by every hit
+    private BattleLog log; // where the steps of the battles are written. null when not logged
+    // battle results
+    private int turns; // number of turns the player took during the last battle
+    private long damageDealt; // damage dealt by the player during the last battle
+    private long damageTaken; // damage taken by the player during the last battle
+    private int hpLost; // HP the player lost during the last battle, heals included
+    private int lootCount; // number of items dropped during the last battle
+    private int lootValue; // total value of the items dropped during the last battle
 
-    // setters to set all the private global variables for this class
+    /** constructor:
+     * builds an engine with an empty floor setup. the floor data and the player have to be set before
+     * any battle can happen. battle seeds are drawn from a random master seed.
+     */
+    public BattleEngine(){
+        this(new SplittableRandom().nextLong()); // distinct per engine even when built at once on many threads
+    }
+    /** constructor:
+     * builds an engine with an empty floor setup whose battle seeds are drawn from the passed master seed.
+     * two engines built with the same master seed and given the same setup fight the same battles.
+     * @param masterSeed the seed of the stream of battle seeds.
+     */
+    public BattleEngine(long masterSeed){
+        this.dangerLevel = 1;
+        this.hostilesList = null;
+        this.hostilesChances = null;
+        this.spawnTable = null;
+        this.boss = null;
+        this.party = null;
+        this.player = null;
+        this.hostiles = new ArrayList<Monster>(MAX_NUM_OF_MONSTERS);
+        this.battleType = BattleType.MONSTER;
+        this.state = new CombatState();
+        this.seeds = new RandomStream(masterSeed);
+        this.rng = new RandomStream(0);
+        this.content = null; // the shared registry unless set otherwise
+        this.pool = null; // built along with the registry
+        this.formulas = null; // the shared formulas unless set otherwise
+        this.values = new double[Formulas.VARIABLE_COUNT];
+        this.log = null;
+    }
+
+    // setters to set all the private variables of the engine
     /**
      * set the danger level of the floor. the danger level raise the chances of meeting more monsters and
      * reduces the chances of escaping.
      * @param lvl the value to set the danger level to.
      */
-    public static void setDangerLevel(int lvl){
+    public void setDangerLevel(int lvl){
         if(lvl > 1){
-            dangerLevel = lvl;
+            this.dangerLevel = lvl;
         }
     }
     /**
@@ -54,75 +118,439 @@ public class BattleEngine {
      * passed arguments and automate the battle.
      * @param battleType can be set to either MONSTER or BOSS.
      */
-    public static void setBattleType(BattleType battleType){ BattleEngine.battleType = battleType; }
+    public void setBattleType(BattleType battleType){ this.battleType = battleType; }
     /**
      * set the list of hostile mobs that can be spawned.
      * @param hList the array of names of all the mobs that can be spawned.
      */
-    public static void setHostilesList(String[] hList) { hostilesList = hList; }
+    public void setHostilesList(String[] hList) {
+        this.hostilesList = hList;
+        this.spawnTable = null; // new floor
+    }
     /**
      * set the chances of encounter of each hostiles on the floor.
      * @param chances an array of integers from 1 to 100 that represent chances of meeting each monster.
      */
-    public static void setHostilesChances(int[] chances){ hostilesChances = chances; }
+    public void setHostilesChances(int[] chances){
+        this.hostilesChances = chances;
+        this.spawnTable = null; // new floor
+    }
     /**
      * set the boss monster of the level. there can only be one boss monster.
      * @param bName is the name of the boss monster.
      */
-    public static void setBosses(String bName){ boss = bName; }
+    public void setBosses(String bName){ this.boss = bName; }
+    /**
+     * set a fixed party of hostiles to fight in every battle instead of spawning one from the floor setup
+     * or the boss. used to simulate a known encounter.
+     * @param composition the ids of the hostiles of the party, at most MAX_NUM_OF_MONSTERS of them; null to
+     * go back to spawned parties.
+     * @throws IllegalArgumentException when the party is empty or too large.
+     */
+    public void setParty(String[] composition){
+        if(composition != null && (composition.length == 0 || composition.length > MAX_NUM_OF_MONSTERS))
+            throw new IllegalArgumentException("a party has 1 to " + MAX_NUM_OF_MONSTERS + " hostiles.");
+        this.party = composition == null ? null : composition.clone();
+    }
     /**
      * set the player that is doing the exploration
      * @param p the Explorer object.
      */
-    public static void setPlayer(Explorer p){ player = p; } // by reference is fine
+    public void setPlayer(Explorer p){ this.player = p; } // by reference is fine
+    /**
+     * set the registry hostiles are spawned from. by default the shared ContentRegistry is used.
+     * @param content a loaded ContentRegistry.
+     */
+    public void setContent(ContentRegistry content){
+        this.content = content;
+        this.pool = null; // hostiles of the former registry aren't reused
+    }
+    /**
+     * set the formulas actions are resolved with. by default the shared Formulas are used.
+     * @param formulas loaded Formulas.
+     */
+    public void setFormulas(Formulas formulas){ this.formulas = formulas; }
+    /**
+     * sets the whole floor setup at once from a floor prepared by a FloorLoader: hostiles, chances, boss,
+     * danger level, spawn table and the pool of hostiles spawned ahead.
+     * @param floor the prepared floor, taken from its FloorLoader.
+     */
+    public void setFloor(FloorLoader.PreparedFloor floor){
+        FloorLoader.Setup setup = floor.setup();
+        this.setHostilesList(setup.hostilesList());
+        this.setHostilesChances(setup.hostilesChances());
+        this.setBosses(setup.boss());
+        this.setDangerLevel(floor.floor().dangerLevel());
+        this.spawnTable = floor.spawnTable();
+        this.content = floor.content();
+        this.pool = floor.pool();
+    }
+    /**
+     * set the log the steps of the battles are written to. battles aren't logged by default.
+     * @param log a BattleLog or null to stop logging.
+     */
+    public void setLog(BattleLog log){ this.log = log; }
 
     //getters
     /**
      * @return the player object that was set. can be used to recover the player with all the changes from battle.
      */
-    public static Explorer getPlayer(){ return player; }
+    public Explorer getPlayer(){ return this.player; }
+    /**
+     * @return the hostiles of the current battle. they are recycled by the next battle of the engine.
+     */
+    public ArrayList<Monster> getHostiles(){ return this.hostiles; }
+    /**
+     * @return the seed of the last battle. encounter(seed) with this seed replays the battle.
+     */
+    public long getSeed(){ return this.rng.seed(); }
+    /**
+     * @return the combat state of the current battle.
+     */
+    public CombatState getState(){ return this.state; }
+    /**
+     * @return the log the battles are written to. null if they aren't logged.
+     */
+    public BattleLog getLog(){ return this.log; }
+    /**
+     * @return the number of turns the player took during the last battle.
+     */
+    public int getTurns(){ return this.turns; }
+    /**
+     * @return the damage the player dealt during the last battle.
+     */
+    public long getDamageDealt(){ return this.damageDealt; }
+    /**
+     * @return the damage the player took during the last battle.
+     */
+    public long getDamageTaken(){ return this.damageTaken; }
+    /**
+     * @return the HP the player had at the start of the last battle minus the HP it had at the end, gear
+     * included. heals are taken into account: it is negative if the player ended with more HP.
+     */
+    public int getHPLost(){ return this.hpLost; }
+    /**
+     * @return the number of items dropped by the hostiles of the last battle.
+     */
+    public int getLootCount(){ return this.lootCount; }
+    /**
+     * @return the total value of the items dropped by the hostiles of the last battle.
+     */
+    public int getLootValue(){ return this.lootValue; }
 
     // battle related methods
 
     /**
      * creates the list of opponents from the passed list of possible opponents name. the arguments
-     * can not be null.
-     * @throws Exception if monster creation from JSON file failed for reasons.
+     * can not be null. the hostiles of the previous battle are reset and given back to the engine's pool
+     * which spawns the new party from them when it can. each herd's hostile is drawn from
+     * the floor's spawn table in constant time, with the chance of each hostile as its weight. when a fixed
+     * party was set, it is spawned as is.
+     * @throws NegativeValueArgumentException if no hostile of the floor has a chance to be met.
+     * @throws Exception if monster creation from its prototype failed for reasons.
      */
-    public static ArrayList<Monster> monsterParty() throws Exception {
-        if (battleType == BattleType.MONSTER) { // multiple monsters with numbers to be randomly determined
+    public ArrayList<Monster> monsterParty() throws Exception {
+        this.hostiles.clear(); // new battle, new party
+        if(this.content == null){
+            this.content = ContentRegistry.shared();
+        }
+        if(this.pool == null){
+            this.pool = new HostilePool(this.content);
+        }
+        this.pool.releaseAll();
+        if (this.party != null) { // a known encounter
+            for (String id : this.party)
+                this.hostiles.add(this.pool.acquire(id));
+        } else if (this.battleType == BattleType.MONSTER) { // multiple monsters with numbers to be randomly determined
             // check validity of passed arguments
-            if(hostilesList == null || hostilesChances == null){
+            if(this.hostilesList == null || this.hostilesChances == null){
                 throw new NullActionArgumentException("arguments may not be null");
             }
             // else we proceed
-            int partySize = ThreadLocalRandom.current().nextInt(MAX_NUM_OF_MONSTERS) + 1; // define a party size
+            if(this.spawnTable == null){
+                this.spawnTable = spawnTable(this.hostilesList, this.hostilesChances);
+            }
+            int partySize = this.rng.nextInt(MAX_NUM_OF_MONSTERS) + 1; // define a party size
             if (partySize < MAX_NUM_OF_MONSTERS) { // danger level
-                if (ThreadLocalRandom.current().nextInt(100) < dangerLevel * CHANCES_OF_ADDITIONAL) {
+                if (this.rng.nextInt(100) < this.dangerLevel * CHANCES_OF_ADDITIONAL) {
                     partySize++; // add one more monster to the party because of the danger level.
                 }
             }
             int monsterIndex; // monster to spawn from hostiles array
             int herdSize; // how many of this particular monster
             while (partySize > 0) { // partySize will be reduced as spawned grows.
-                // choose an index
-                monsterIndex = ThreadLocalRandom.current().nextInt(hostilesList.length);
-                if (ThreadLocalRandom.current().nextInt(100) < hostilesChances[monsterIndex]) {
-                    // we can meet this monster so check how many there are
-                    herdSize = ThreadLocalRandom.current().nextInt(partySize + 1);
-                    for (int i = 0; i < herdSize; i++)
-                        hostiles.add(JsonIO.loadHostile(hostilesList[monsterIndex])); // and spawn those
-                    // update the party size
-                    partySize -= herdSize;
-                }
+                // choose a monster we can meet
+                monsterIndex = this.spawnTable.next(this.rng);
+                // check how many there are
+                herdSize = this.rng.nextInt(partySize + 1);
+                for (int i = 0; i < herdSize; i++)
+                    this.hostiles.add(this.pool.acquire(this.hostilesList[monsterIndex])); // and spawn those
+                // update the party size
+                partySize -= herdSize;
             }
         } else { // supposing BattleType.BOSS.
-            if(boss == null){ // check for validity of information
+            if(this.boss == null){ // check for validity of information
                 throw new NullActionArgumentException("argument may not be null");
             }
             // else we spawn the boss
-            hostiles.add(JsonIO.loadHostile(boss));
+            this.hostiles.add(this.pool.acquire(this.boss));
+        }
+        return this.hostiles;
+    }
+
+    /**
+     * builds the spawn table of a floor. chances are clamped to [0, 100] like the former rejection loop
+     * did, which makes hostile i as likely as chances[i] / sum(chances). missing chances count as 0.
+     * @param hostilesList the hostiles of the floor.
+     * @param hostilesChances the chances of encounter of each.
+     * @return the table to draw the hostiles from.
+     * @throws NegativeValueArgumentException if every chance is 0 or less.
+     */
+    static AliasTable spawnTable(String[] hostilesList, int[] hostilesChances) throws NegativeValueArgumentException {
+        int[] weights = new int[hostilesList.length];
+        for(int i = 0; i < weights.length && i < hostilesChances.length; i++){
+            weights[i] = Math.max(0, Math.min(100, hostilesChances[i]));
+        }
+        return new AliasTable(weights);
+    }
+
+    /**
+     * runs a complete battle from the next seed of the engine. see encounter(long).
+     * @return true if the player won the battle; false else wise.
+     * @throws Exception if the party could not be spawned.
+     */
+    public boolean encounter() throws Exception {
+        return this.encounter(this.seeds.nextLong());
+    }
+    /**
+     * runs a complete battle between the player and a freshly spawned party. every roll of the battle is
+     * drawn from a stream started from "seed" so the same seed, setup and player give the same battle. the
+     * state of the combatants is loaded in the engine's CombatState and the battle is computed on it. the
+     * combatants act in the order of its Timeline: faster units act more often and a change of SPD moves a
+     * unit up or down the timeline right away. the battle stops when either party is wiped out or when the
+     * player took MAX_TURNS turns. the resulting stats are then written back to the units, a victorious player
+     * is awarded experience and the loot dropped by the defeated hostiles and non-HP stats of the player
+     * are cleansed.
+     * @param seed the seed of the battle.
+     * @return true if the player won the battle; false else wise.
+     * @throws Exception if the party could not be spawned.
+     */
+    public boolean encounter(long seed) throws Exception {
+        if(this.player == null){
+            throw new NullActionArgumentException("the player may not be null");
+        }
+        if(this.formulas == null){
+            this.formulas = Formulas.shared();
+        }
+        this.rng.reseed(seed);
+        this.monsterParty();
+        this.turns = 0;
+        this.damageDealt = 0;
+        this.damageTaken = 0;
+        this.lootCount = 0;
+        this.lootValue = 0;
+        CombatState st = this.state;
+        st.load(this.player, this.hostiles);
+        int startHP = st.current(CombatState.PLAYER, StatId.HP);
+        if(this.log != null){
+            this.log.setTurn(0);
+            this.log.write(BattleLog.BATTLE_START, -1, -1, this.hostiles.size(), (int) (seed >>> 32), (int) seed);
+        }
+        Timeline timeline = st.timeline();
+        while(st.isAlive(CombatState.PLAYER) && st.hostilesAlive() && this.turns < MAX_TURNS){
+            int actor = timeline.next(); // dead units are off the timeline
+            if(actor == CombatState.PLAYER){
+                this.turns++;
+                if(this.log != null)
+                    this.log.setTurn(this.turns);
+            }
+            this.event(BattleLog.TURN, actor, -1, 0, 0, 0);
+            this.act(actor);
+        }
+        this.hpLost = startHP - st.current(CombatState.PLAYER, StatId.HP);
+        st.writeBack();
+        boolean won = st.isAlive(CombatState.PLAYER) && !st.hostilesAlive();
+        int exp = 0;
+        if(won){
+            exp = this.reward();
+        }
+        this.event(BattleLog.BATTLE_END, -1, -1, won ? 1 : 0, this.turns, exp);
+        this.player.stats().cleanseAll();
+        return won;
+    }
+
+    /**
+     * the cooldowns and modifiers due by now end, then the actor picks the action to use and applies it to
+     * its targets.
+     * @param actor the slot of the combatant whose turn it is.
+     */
+    private void act(int actor) throws NegativeValueArgumentException {
+        CombatState st = this.state;
+        st.advance();
+        int kind = st.choose(actor);
+        Action action = STRIKE;
+        int mask = 0;
+        if(kind >= 0){
+            int at = actor * CombatState.ACTION_KINDS + kind;
+            action = st.actions[at];
+            mask = st.statMasks[at];
+            st.freeze(actor, kind, action.cooldown()); // used actions need to cool down again
+        }
+        boolean isPlayer = actor == CombatState.PLAYER;
+        int target; // -1 when the action hits every living hostile
+        switch(action.target()){
+            case SELF:
+                target = actor;
+                break;
+            case ALLY:
+            case ALLX:
+                target = isPlayer ? actor : -1;
+                break;
+            case OPPX:
+                target = isPlayer ? -1 : CombatState.PLAYER;
+                break;
+            default: // OPPT
+                target = isPlayer ? this.pickHostile() : CombatState.PLAYER;
+                break;
+        }
+        this.event(BattleLog.ACTION, actor, target, kind < 0 ? 255 : kind, 0, 0);
+        if(target >= 0){
+            this.apply(actor, action, mask, target);
+        }else{
+            for(int slot = 1; slot < st.size(); slot++){
+                if(st.isAlive(slot))
+                    this.apply(actor, action, mask, slot);
+            }
+        }
+    }
+
+    /**
+     * @return the slot of a random living hostile.
+     */
+    private int pickHostile(){
+        int pick = this.rng.nextInt(this.state.hostilesAliveCount());
+        for(int slot = 1; slot < this.state.size(); slot++){
+            if(this.state.isAlive(slot) && pick-- == 0)
+                return slot;
+        }
+        return CombatState.PLAYER; // unreachable while hostilesAlive()
+    }
+
+    /**
+     * applies the effect of an action to a single target after rolling for accuracy. the amounts are given
+     * by the engine's formulas: agressions deal the physical or special damage, buffs raise the stats of
+     * "mask" by the buff amount (or heal for HP) and nerfs lower them by the nerf amount (or hurt for HP).
+     * changes to non-HP stats last for the duration of the action.
+     * @param user the slot of the combatant that performs the action.
+     * @param action the action performed.
+     * @param mask the stats affected by a buff or nerf.
+     * @param target the slot of the combatant that receives the action.
+     */
+    private void apply(int user, Action action, int mask, int target) throws NegativeValueArgumentException {
+        if(this.rng.nextInt(100) >= action.accuracy()){
+            this.event(BattleLog.MISS, user, target, 0, 0, 0);
+            return; // missed
+        }
+        CombatState st = this.state;
+        double[] v = this.values;
+        st.refresh(user); // stale stats are recomputed once here rather than on every read
+        st.refresh(target);
+        int userBase = user * CombatState.STAT_COUNT;
+        int targetBase = target * CombatState.STAT_COUNT;
+        v[Formulas.MULTIPLIER] = action.multiplier();
+        v[Formulas.AFFINITY] = Elements.AFFINITY[action.attribute().elementalId() * Elements.COUNT + st.element(target)];
+        v[Formulas.ACCURACY] = action.accuracy();
+        v[Formulas.USER_LEVEL] = st.level(user);
+        v[Formulas.TARGET_LEVEL] = st.level(target);
+        for(int stat = 0; stat < CombatState.STAT_COUNT; stat++){
+            v[Formulas.USER + stat] = st.current[userBase + stat];
+            v[Formulas.USER_MAX + stat] = st.max[userBase + stat];
+            v[Formulas.TARGET + stat] = st.current[targetBase + stat];
+            v[Formulas.TARGET_MAX + stat] = st.max[targetBase + stat];
+        }
+        if(action instanceof Buff || action instanceof Nerf){
+            boolean buff = action instanceof Buff;
+            for(int stat = 0; stat < CombatState.STAT_COUNT; stat++){
+                if((mask & (1 << stat)) == 0)
+                    continue;
+                st.refresh(target);
+                v[Formulas.STAT] = st.current[targetBase + stat];
+                v[Formulas.MAX_STAT] = st.max[targetBase + stat];
+                boolean hp = stat == StatId.HP.ordinal();
+                int amount = (int) (buff ? (hp ? this.formulas.heal() : this.formulas.buff()) : this.formulas.nerf()).eval(v);
+                if(amount <= 0)
+                    continue;
+                if(hp && buff){ // heals don't go over the max
+                    int before = st.current[targetBase + stat];
+                    st.current[targetBase + stat] = Math.min(st.max[targetBase + stat], before + amount);
+                    st.updateHealth(target);
+                    this.event(BattleLog.HEAL, user, target, stat, st.current[targetBase + stat] - before,
+                        st.current[targetBase + stat]);
+                }else if(hp){
+                    this.hurt(user, target, amount);
+                }else{
+                    st.modify(target, stat, buff ? amount : -amount, CombatState.NO_SCALE, action.duration());
+                    this.event(buff ? BattleLog.BUFF : BattleLog.NERF, user, target, stat, amount, action.duration());
+                }
+            }
+        }else{ // Agress
+            Formulas.Formula damage = action.category() == Category.PHYSICAL ? this.formulas.physical() :
+                this.formulas.special();
+            this.hurt(user, target, Math.max(1, (int) damage.eval(v)));
+        }
+    }
+
+    /**
+     * deals damage to a combatant and records it in the battle results.
+     * @param user the slot of the combatant that deals the damage.
+     * @param target the slot of the combatant that takes it.
+     * @param damage the damage dealt. capped to the target's HP.
+     */
+    private void hurt(int user, int target, int damage) throws NegativeValueArgumentException {
+        damage = Math.min(damage, this.state.current(target, StatId.HP));
+        if(user == CombatState.PLAYER)
+            this.damageDealt += damage;
+        else if(target == CombatState.PLAYER)
+            this.damageTaken += damage;
+        boolean morphed = this.state.hurt(target, damage);
+        if(this.log != null){
+            this.log.write(BattleLog.DAMAGE, user, target, 0, damage, this.state.current(target, StatId.HP));
+            if(morphed)
+                this.log.write(BattleLog.MORPH, user, target, 0, ((Monster) this.state.unit(target)).forms(), 0);
+            else if(!this.state.isAlive(target))
+                this.log.write(BattleLog.DEATH, user, target, 0, 0, 0);
+        }
+    }
+
+    /**
+     * writes an event to the log of the engine if there is one.
+     */
+    private void event(int type, int actor, int target, int argument, int value, int aux){
+        if(this.log != null)
+            this.log.write(type, actor, target, argument, value, aux);
+    }
+
+    /**
+     * awards the player experience for each defeated hostile and rolls each hostile's drop. dropped items
+     * are stored in the player's bag while it has space.
+     * @return the experience earned.
+     */
+    private int reward() throws NegativeValueArgumentException {
+        int exp = 0;
+        for(int i = 0; i < this.hostiles.size(); i++){
+            Monster m = this.hostiles.get(i);
+            exp += m.level().current() * EXP_PER_LEVEL;
+            Item[] carried = m.carried();
+            if(carried != null && carried.length > 0 && this.rng.nextInt(100) < CHANCES_OF_DROP){
+                int pick = this.rng.nextInt(carried.length);
+                Item drop = carried[pick];
+                this.lootCount++;
+                this.lootValue += drop.cost();
+                this.player.bag().store(drop);
+                this.event(BattleLog.LOOT, -1, i + 1, pick, drop.cost(), 0);
+            }
         }
-        return hostiles;
+        this.player.level().earn(exp);
+        return exp;
     }
 }
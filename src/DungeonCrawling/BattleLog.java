@@ -0,0 +1,227 @@
+package DungeonCrawling;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/** BattleLog object:
+ * binary log of the steps of the battles of an engine. every event is a fixed-size record of RECORD_INTS
+ * ints written in a ring buffer allocated once: when the buffer is full the oldest records are
+ * overwritten. writing an event never allocates so the engine can log every step of every battle. events
+ * are numbered by a sequence that keeps growing; records from first() to end() - 1 can be read back
+ * with the accessors below, e.g. by the FXGL layer to animate a battle or by analytics.
+ * a record is laid out as follows:
+ *  int 0: type (8 bits) | actor slot (8 bits) | target slot (8 bits) | argument (8 bits)
+ *  int 1: turn of the player when the event happened
+ *  int 2: value
+ *  int 3: auxiliary value
+ * the meaning of the argument, value and auxiliary value depends on the type:
+ *  BATTLE_START  argument: party size   value/aux: high/low 32 bits of the battle seed
+ *  TURN          actor: the combatant whose turn it is
+ *  ACTION        actor, target: -1 for several targets   argument: action kind or 255 for the fallback strike
+ *  MISS          actor, target
+ *  DAMAGE        actor, target   value: damage   aux: HP left
+ *  HEAL          actor, target   value: HP healed   aux: HP after
+ *  BUFF, NERF    actor, target   argument: StatId ordinal   value: amount   aux: duration
+ *  DEATH         target
+ *  MORPH         target   value: forms left
+ *  LOOT          target: the hostile that dropped the item   argument: index in its loot   value: cost
+ *  BATTLE_END    argument: 1 if the player won   value: turns   aux: experience earned
+ * the log can be dumped to a file and loaded back so that a battle can be replayed step by step, or run
+ * again with BattleEngine.encounter(seed) and compared. a log is not synchronized and must be read by the
+ * thread that writes it or after handing it over.
+ */
+public class BattleLog {
+    // file format
+    private static final int MAGIC = 0x5244434C; // "RDCL"
+    private static final int VERSION = 1;
+    // record layout
+    public static final int RECORD_INTS = 4;
+    // event types
+    public static final int BATTLE_START = 0;
+    public static final int TURN = 1;
+    public static final int ACTION = 2;
+    public static final int MISS = 3;
+    public static final int DAMAGE = 4;
+    public static final int HEAL = 5;
+    public static final int BUFF = 6;
+    public static final int NERF = 7;
+    public static final int DEATH = 8;
+    public static final int MORPH = 9;
+    public static final int LOOT = 10;
+    public static final int BATTLE_END = 11;
+    private static final String[] TYPE_NAMES = {"BATTLE_START", "TURN", "ACTION", "MISS", "DAMAGE", "HEAL",
+        "BUFF", "NERF", "DEATH", "MORPH", "LOOT", "BATTLE_END"};
+    // attributes
+    private final int[] records;
+    private final int mask; // capacity - 1
+    private long end; // sequence of the next record
+    private int turn; // stamped on every record
+
+    /** constructor:
+     * allocates a log able to keep the last "capacity" events.
+     * @param capacity the number of records to keep. rounded up to a power of two.
+     */
+    public BattleLog(int capacity){
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.records = new int[size * RECORD_INTS];
+        this.mask = size - 1;
+        this.end = 0;
+        this.turn = 0;
+    }
+
+    // getters
+    /**
+     * @return the number of records the log keeps.
+     */
+    public int capacity(){ return this.mask + 1; }
+    /**
+     * @return the sequence of the oldest record still in the log.
+     */
+    public long first(){ return Math.max(0, this.end - this.capacity()); }
+    /**
+     * @return the sequence the next record will get. the log holds the records from first() to end() - 1.
+     */
+    public long end(){ return this.end; }
+    /**
+     * @return the number of records in the log.
+     */
+    public int size(){ return (int) (this.end - this.first()); }
+    /**
+     * @param seq the sequence of a record in the log.
+     * @return the type of the event.
+     */
+    public int type(long seq){ return this.records[this.at(seq)] >>> 24; }
+    /**
+     * @param seq the sequence of a record in the log.
+     * @return the slot of the combatant that caused the event or -1.
+     */
+    public int actor(long seq){ return (byte) (this.records[this.at(seq)] >>> 16); }
+    /**
+     * @param seq the sequence of a record in the log.
+     * @return the slot of the combatant the event happened to or -1.
+     */
+    public int target(long seq){ return (byte) (this.records[this.at(seq)] >>> 8); }
+    /**
+     * @param seq the sequence of a record in the log.
+     * @return the argument of the event.
+     */
+    public int argument(long seq){ return this.records[this.at(seq)] & 0xFF; }
+    /**
+     * @param seq the sequence of a record in the log.
+     * @return the turn of the player when the event happened.
+     */
+    public int turn(long seq){ return this.records[this.at(seq) + 1]; }
+    /**
+     * @param seq the sequence of a record in the log.
+     * @return the value of the event.
+     */
+    public int value(long seq){ return this.records[this.at(seq) + 2]; }
+    /**
+     * @param seq the sequence of a record in the log.
+     * @return the auxiliary value of the event.
+     */
+    public int aux(long seq){ return this.records[this.at(seq) + 3]; }
+    /**
+     * @param seq the sequence of a BATTLE_START record in the log.
+     * @return the seed of the battle.
+     */
+    public long seed(long seq){ return ((long) this.value(seq) << 32) | (this.aux(seq) & 0xFFFFFFFFL); }
+    /**
+     * @param seq the sequence of a record in the log.
+     * @return the index of the record in the buffer.
+     */
+    private int at(long seq){
+        if(seq < this.first() || seq >= this.end)
+            throw new IndexOutOfBoundsException("record " + seq + " is not in the log");
+        return (int) (seq & this.mask) * RECORD_INTS;
+    }
+
+    // setters
+    /**
+     * sets the turn stamped on the next records.
+     * @param turn the turn of the player.
+     */
+    void setTurn(int turn){ this.turn = turn; }
+    /**
+     * appends a record, overwriting the oldest one if the log is full.
+     * @param type the type of the event.
+     * @param actor the slot of the combatant that caused it or -1.
+     * @param target the slot of the combatant it happened to or -1.
+     * @param argument the argument of the event, 0 to 255.
+     * @param value the value of the event.
+     * @param aux the auxiliary value of the event.
+     */
+    void write(int type, int actor, int target, int argument, int value, int aux){
+        int i = (int) (this.end++ & this.mask) * RECORD_INTS;
+        this.records[i] = type << 24 | (actor & 0xFF) << 16 | (target & 0xFF) << 8 | (argument & 0xFF);
+        this.records[i + 1] = this.turn;
+        this.records[i + 2] = value;
+        this.records[i + 3] = aux;
+    }
+    /**
+     * removes every record.
+     */
+    public void clear(){
+        this.end = 0;
+        this.turn = 0;
+    }
+
+    // other methods
+    /**
+     * @param seq the sequence of a record in the log.
+     * @return a readable description of the record, for debugging.
+     */
+    public String describe(long seq){
+        int type = this.type(seq);
+        return String.format("#%d turn %d %s actor %d target %d arg %d value %d aux %d", seq, this.turn(seq),
+            type < TYPE_NAMES.length ? TYPE_NAMES[type] : "UNKNOWN", this.actor(seq), this.target(seq),
+            this.argument(seq), this.value(seq), this.aux(seq));
+    }
+    /**
+     * writes the records of the log, oldest first, to a file.
+     * @param path the path of the file.
+     * @throws IOException if the file could not be written.
+     */
+    public void dump(String path) throws IOException {
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))){
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(this.first());
+            out.writeInt(this.size());
+            for(long seq = this.first(); seq < this.end; seq++){
+                int i = (int) (seq & this.mask) * RECORD_INTS;
+                for(int j = 0; j < RECORD_INTS; j++){
+                    out.writeInt(this.records[i + j]);
+                }
+            }
+        }
+    }
+    /**
+     * reads a log dumped by dump(). the records keep their sequence.
+     * @param path the path of the file.
+     * @return a log holding exactly the records of the file.
+     * @throws IOException if the file could not be read or is not a battle log.
+     */
+    public static BattleLog load(String path) throws IOException {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))){
+            if(in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException(path + " is not a battle log of version " + VERSION);
+            long first = in.readLong();
+            int size = in.readInt();
+            BattleLog log = new BattleLog(size);
+            log.end = first;
+            for(int n = 0; n < size; n++){
+                int i = (int) (log.end++ & log.mask) * RECORD_INTS;
+                for(int j = 0; j < RECORD_INTS; j++){
+                    log.records[i + j] = in.readInt();
+                }
+            }
+            return log;
+        }
+    }
+}
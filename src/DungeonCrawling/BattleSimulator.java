@@ -0,0 +1,450 @@
+package DungeonCrawling;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import Customs.Utilities.RandomStream;
+import WorldComponents.Basics.Defines.StatId;
+import WorldComponents.Basics.Jobs.Fighter;
+import WorldComponents.Mobs.Explorer;
+
+/** BattleSimulator object:
+ * headless simulation mode of the battle system. a simulator runs a large number of encounters of the
+ * same explorer template against the hostiles of a floor and reports how they went: win rate, number of
+ * turns, damage dealt and taken and loot gained. it never touches FXGL so it can be run from the command
+ * line to balance floors. battles are split across a fork/join pool; every leaf task drives its own
+ * BattleEngine so no state is shared between threads but the read-only template.
+ * the seed of each battle is derived from the master seed of the simulator and the index of the battle,
+ * never from the thread that runs it: a run with the same master seed gives the same report whatever
+ * the size of the pool and however the batches get scheduled.
+ * a simulator can also fight a fixed party of hostiles and estimate the chances of the explorer: battles
+ * are then run by rounds until the confidence interval of the win rate is narrow enough, which gives an
+ * answer within a few thousand battles for most encounters.
+ */
+public class BattleSimulator {
+    // attributes
+    private static final int BATCH_SIZE = 256; // battles run by a single leaf task
+    private static final int ROUND_SIZE = 16 * BATCH_SIZE; // battles run between two checks of an estimate
+    private static final double Z = 1.96; // 95% confidence
+    private final Explorer template; // never modified: each battle fights with a fresh copy
+    private final int[] startStats; // current stats of the template when the simulator was built
+    private final String[] hostilesList;
+    private final int[] hostilesChances;
+    private final int dangerLevel;
+    private final String[] party; // fixed party fought in every battle; null when parties are spawned
+    private final long seed; // master seed of the battles
+
+    /** Report object:
+     * aggregated results of a number of simulated battles. reports of separate batches are merged
+     * together to produce the final report.
+     */
+    public static class Report{
+        // attributes
+        private long battles;
+        private long wins;
+        private final long[] turns; // turns[t] is the number of battles that lasted t turns
+        private long damageDealt;
+        private long damageTaken;
+        private long hpLost; // start HP minus end HP summed over the battles
+        private long lootCount;
+        private long lootValue;
+        private long elapsed; // nanoseconds
+
+        /** constructor:
+         * builds an empty report.
+         */
+        public Report(){
+            this.turns = new long[BattleEngine.MAX_TURNS + 1];
+        }
+
+        // getters
+        /**
+         * @return the number of simulated battles.
+         */
+        public long battles(){ return this.battles; }
+        /**
+         * @return the number of battles won by the explorer.
+         */
+        public long wins(){ return this.wins; }
+        /**
+         * @return the fraction of battles won by the explorer.
+         */
+        public double winRate(){ return this.battles == 0 ? 0 : (double) this.wins / this.battles; }
+        /**
+         * @return the turn-count distribution. index t holds the number of battles that lasted t turns.
+         */
+        public long[] turnDistribution(){ return this.turns; }
+        /**
+         * @return the average number of turns per battle.
+         */
+        public double meanTurns(){
+            long sum = 0;
+            for(int t = 0; t < this.turns.length; t++){
+                sum += t * this.turns[t];
+            }
+            return this.battles == 0 ? 0 : (double) sum / this.battles;
+        }
+        /**
+         * @param fraction a value between 0 and 1.
+         * @return the smallest number of turns that at least "fraction" of the battles didn't exceed.
+         */
+        public int turnPercentile(double fraction){
+            long needed = (long) Math.ceil(fraction * this.battles);
+            long seen = 0;
+            for(int t = 0; t < this.turns.length; t++){
+                seen += this.turns[t];
+                if(seen >= needed && seen > 0)
+                    return t;
+            }
+            return this.turns.length - 1;
+        }
+        /**
+         * @return the total damage dealt by the explorer.
+         */
+        public long damageDealt(){ return this.damageDealt; }
+        /**
+         * @return the total damage taken by the explorer.
+         */
+        public long damageTaken(){ return this.damageTaken; }
+        /**
+         * @return the total HP lost by the explorer, net of heals.
+         */
+        public long hpLost(){ return this.hpLost; }
+        /**
+         * @return the total number of items dropped.
+         */
+        public long lootCount(){ return this.lootCount; }
+        /**
+         * @return the total value of the items dropped.
+         */
+        public long lootValue(){ return this.lootValue; }
+        /**
+         * @return the number of battles simulated per second of wall clock time.
+         */
+        public double battlesPerSecond(){ return this.elapsed == 0 ? 0 : this.battles / (this.elapsed / 1e9); }
+
+        // setters
+        /**
+         * records the results of the last battle of an engine.
+         * @param engine the engine that just ran the battle.
+         * @param won whether the explorer won it.
+         */
+        void record(BattleEngine engine, boolean won){
+            this.battles++;
+            if(won)
+                this.wins++;
+            this.turns[engine.getTurns()]++;
+            this.damageDealt += engine.getDamageDealt();
+            this.damageTaken += engine.getDamageTaken();
+            this.hpLost += engine.getHPLost();
+            this.lootCount += engine.getLootCount();
+            this.lootValue += engine.getLootValue();
+        }
+        /**
+         * adds the results of another report to this one.
+         * @param other the report to merge in.
+         * @return this report.
+         */
+        Report merge(Report other){
+            this.battles += other.battles;
+            this.wins += other.wins;
+            for(int t = 0; t < this.turns.length; t++){
+                this.turns[t] += other.turns[t];
+            }
+            this.damageDealt += other.damageDealt;
+            this.damageTaken += other.damageTaken;
+            this.hpLost += other.hpLost;
+            this.lootCount += other.lootCount;
+            this.lootValue += other.lootValue;
+            return this;
+        }
+
+        @Override
+        public String toString(){
+            return String.format("battles: %d (%.0f battles/s)%n" +
+                "win rate: %.2f%%%n" +
+                "turns: mean %.2f, median %d, p90 %d, p99 %d%n" +
+                "damage dealt: %.2f per battle, damage taken: %.2f per battle%n" +
+                "loot: %d items worth %d",
+                this.battles, this.battlesPerSecond(), this.winRate() * 100, this.meanTurns(),
+                this.turnPercentile(.5), this.turnPercentile(.9), this.turnPercentile(.99),
+                this.battles == 0 ? 0 : (double) this.damageDealt / this.battles,
+                this.battles == 0 ? 0 : (double) this.damageTaken / this.battles,
+                this.lootCount, this.lootValue);
+        }
+    }
+
+    /** Estimate object:
+     * chances of the explorer against the hostiles of a simulator, as estimated from the battles run until
+     * the confidence interval got narrow enough or the battle budget ran out.
+     */
+    public static class Estimate{
+        // attributes
+        private final Report report;
+        private final double low; // bounds of the 95% confidence interval of the win rate
+        private final double high;
+        private final int startHP; // HP of the explorer when the battles start
+
+        /** constructor:
+         * expects the report of the battles run and the HP the explorer started them with.
+         */
+        Estimate(Report report, int startHP){
+            this.report = report;
+            this.startHP = startHP;
+            double[] bounds = wilson(report.wins(), report.battles());
+            this.low = bounds[0];
+            this.high = bounds[1];
+        }
+
+        // getters
+        /**
+         * @return the report of all the battles the estimate is made of.
+         */
+        public Report report(){ return this.report; }
+        /**
+         * @return the number of battles run.
+         */
+        public long battles(){ return this.report.battles(); }
+        /**
+         * @return the estimated probability of the explorer winning.
+         */
+        public double winProbability(){ return this.report.winRate(); }
+        /**
+         * @return the lower bound of the 95% confidence interval of the win probability.
+         */
+        public double low(){ return this.low; }
+        /**
+         * @return the upper bound of the 95% confidence interval of the win probability.
+         */
+        public double high(){ return this.high; }
+        /**
+         * @return the expected HP the explorer loses in a battle: its HP at the start minus its HP at the end.
+         */
+        public double expectedHPLoss(){
+            return this.report.battles() == 0 ? 0 : (double) this.report.hpLost() / this.report.battles();
+        }
+        /**
+         * @return the expected part of its starting HP the explorer loses in a battle.
+         */
+        public double expectedHPLossRate(){ return this.startHP == 0 ? 0 : this.expectedHPLoss() / this.startHP; }
+
+        @Override
+        public String toString(){
+            return String.format("win probability: %.2f%% (95%% CI %.2f%% - %.2f%%) over %d battles%n" +
+                "expected HP loss: %.2f (%.2f%% of %d HP)",
+                this.winProbability() * 100, this.low * 100, this.high * 100, this.battles(),
+                this.expectedHPLoss(), this.expectedHPLossRate() * 100, this.startHP);
+        }
+    }
+
+    /** Batch object:
+     * fork/join task that simulates a range of battles. ranges larger than BATCH_SIZE are split in two.
+     */
+    private class Batch extends RecursiveTask<Report>{
+        private static final long serialVersionUID = 1L;
+        private final long from; // index of the first battle of the range
+        private final long count;
+
+        Batch(long from, long count){
+            this.from = from;
+            this.count = count;
+        }
+
+        @Override
+        protected Report compute(){
+            if(this.count > BATCH_SIZE){
+                Batch left = new Batch(this.from, this.count / 2);
+                Batch right = new Batch(this.from + this.count / 2, this.count - this.count / 2);
+                left.fork();
+                return right.compute().merge(left.join());
+            }
+            Report report = new Report();
+            try{
+                BattleEngine engine = BattleSimulator.this.floorEngine(); // confined to this task
+                for(long i = 0; i < this.count; i++){
+                    Explorer player = new Explorer(BattleSimulator.this.template);
+                    player.stats().writeCurrents(BattleSimulator.this.startStats, 0);
+                    player.healthCheck();
+                    engine.setPlayer(player);
+                    long battleSeed = RandomStream.mix(BattleSimulator.this.seed, this.from + i);
+                    report.record(engine, engine.encounter(battleSeed));
+                }
+            }catch (Exception err){
+                throw new IllegalStateException("battle simulation failed", err);
+            }
+            return report;
+        }
+    }
+
+    /** constructor:
+     * expects the explorer to simulate and the hostiles setup of the floor to simulate it against.
+     * @param template the explorer that will fight. it is copied for each battle and never modified; every
+     * copy starts with the current stats the template has now.
+     * @param hostilesList the names of the hostiles that can be spawned.
+     * @param hostilesChances the chances of encounter of each hostile.
+     * @param dangerLevel the danger level of the floor.
+     */
+    public BattleSimulator(Explorer template, String[] hostilesList, int[] hostilesChances, int dangerLevel){
+        this(template, hostilesList, hostilesChances, dangerLevel, System.nanoTime());
+    }
+    /** constructor:
+     * same as above but with a fixed master seed so that runs can be reproduced.
+     * @param seed the master seed the seed of every battle is derived from.
+     */
+    public BattleSimulator(Explorer template, String[] hostilesList, int[] hostilesChances, int dangerLevel,
+                           long seed){
+        this.template = template;
+        this.startStats = template.stats().getSetCurrents();
+        this.hostilesList = hostilesList.clone();
+        this.hostilesChances = hostilesChances.clone();
+        this.dangerLevel = dangerLevel;
+        this.party = null;
+        this.seed = seed;
+    }
+    /** constructor:
+     * expects the explorer to simulate and a fixed party of hostiles to fight in every battle, like the
+     * boss waiting down the boss stairs.
+     * @param template the explorer that will fight. it is copied for each battle and never modified; every
+     * copy starts with the current stats the template has now.
+     * @param party the ids of the hostiles of the party. at most BattleEngine.MAX_NUM_OF_MONSTERS of them.
+     * @param seed the master seed the seed of every battle is derived from.
+     * @throws IllegalArgumentException when the party is empty or too large.
+     */
+    public BattleSimulator(Explorer template, String[] party, long seed){
+        if(party.length == 0 || party.length > BattleEngine.MAX_NUM_OF_MONSTERS)
+            throw new IllegalArgumentException("a party has 1 to " + BattleEngine.MAX_NUM_OF_MONSTERS + " hostiles.");
+        this.template = template;
+        this.startStats = template.stats().getSetCurrents();
+        this.hostilesList = null;
+        this.hostilesChances = null;
+        this.dangerLevel = 1;
+        this.party = party.clone();
+        this.seed = seed;
+    }
+
+    // getters
+    /**
+     * @return the master seed of the simulator.
+     */
+    public long seed(){ return this.seed; }
+    /**
+     * @param index the index of a battle of a run.
+     * @return the seed that battle is fought with. BattleEngine.encounter(seed) replays it.
+     */
+    public long battleSeed(long index){ return RandomStream.mix(this.seed, index); }
+
+    /**
+     * @return a BattleEngine set up with the floor of this simulator.
+     */
+    private BattleEngine floorEngine(){
+        BattleEngine engine = new BattleEngine();
+        engine.setHostilesList(this.hostilesList);
+        engine.setHostilesChances(this.hostilesChances);
+        engine.setDangerLevel(this.dangerLevel);
+        engine.setParty(this.party);
+        return engine;
+    }
+
+    /**
+     * simulates the requested number of encounters on the common fork/join pool.
+     * @param encounters the number of battles to simulate.
+     * @return the report of all the battles.
+     */
+    public Report run(long encounters){
+        return this.run(encounters, ForkJoinPool.commonPool());
+    }
+    /**
+     * simulates the requested number of encounters on the passed fork/join pool.
+     * @param encounters the number of battles to simulate.
+     * @param pool the pool to run the battles on.
+     * @return the report of all the battles.
+     */
+    public Report run(long encounters, ForkJoinPool pool){
+        long start = System.nanoTime();
+        Report report = pool.invoke(new Batch(0, encounters));
+        report.elapsed = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * estimates the chances of the explorer on the common fork/join pool: within 1 point of win rate, in at
+     * most 100000 battles.
+     * @return the estimate.
+     */
+    public Estimate estimate(){
+        return this.estimate(.01, 100000, ForkJoinPool.commonPool());
+    }
+    /**
+     * estimates the chances of the explorer. battles are run in parallel by rounds of ROUND_SIZE; after each
+     * round the 95% confidence interval of the win rate is computed and the estimate stops as soon as its
+     * half width is at most "margin". the battles are the first ones of run() with the same seed and
+     * rounds always end at the same indexes, so the estimate too only depends on the master seed.
+     * @param margin the largest half width of the confidence interval to stop at, e.g. 0.01.
+     * @param maxBattles the most battles to run whatever the interval.
+     * @param pool the pool to run the battles on.
+     * @return the estimate.
+     */
+    public Estimate estimate(double margin, long maxBattles, ForkJoinPool pool){
+        long start = System.nanoTime();
+        Report report = new Report();
+        while(report.battles() < maxBattles){
+            long round = Math.min(ROUND_SIZE, maxBattles - report.battles());
+            report.merge(pool.invoke(new Batch(report.battles(), round)));
+            double[] bounds = wilson(report.wins(), report.battles());
+            if((bounds[1] - bounds[0]) / 2 <= margin)
+                break;
+        }
+        report.elapsed = System.nanoTime() - start;
+        return new Estimate(report, this.startStats[StatId.HP.ordinal()] + this.template.body().bonus(StatId.HP));
+    }
+    /**
+     * computes the Wilson score interval of a proportion. unlike the normal approximation it stays inside
+     * [0, 1] and doesn't collapse when every battle is won or lost.
+     * @param successes the number of battles won.
+     * @param trials the number of battles.
+     * @return {low, high}, the bounds of the 95% confidence interval. {0, 1} when there was no battle.
+     */
+    static double[] wilson(long successes, long trials){
+        if(trials == 0)
+            return new double[]{0, 1};
+        double p = (double) successes / trials;
+        double z2 = Z * Z;
+        double center = (p + z2 / (2 * trials)) / (1 + z2 / trials);
+        double half = Z * Math.sqrt(p * (1 - p) / trials + z2 / (4.0 * trials * trials)) / (1 + z2 / trials);
+        return new double[]{Math.max(0, center - half), Math.min(1, center + half)};
+    }
+
+    /**
+     * command line entry of the simulator. run from the project root so that the resources folder can be found:
+     * java DungeonCrawling.BattleSimulator [encounters] [dangerLevel] [hostile:chance]...
+     * the simulated explorer is a level 1 Fighter. the master seed can be fixed with -Dseed=[long]. with
+     * -Dmargin=[double] the chances of the explorer are estimated instead, "encounters" being the most
+     * battles to run.
+     */
+    public static void main(String[] args) throws Exception {
+        long encounters = args.length > 0 ? Long.parseLong(args[0]) : 100000;
+        int danger = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int floorSize = Math.max(1, args.length - 2);
+        String[] hostiles = new String[floorSize];
+        int[] chances = new int[floorSize];
+        if(args.length > 2){
+            for(int i = 0; i < floorSize; i++){
+                String[] pair = args[i + 2].split(":");
+                hostiles[i] = pair[0];
+                chances[i] = pair.length > 1 ? Integer.parseInt(pair[1]) : 100;
+            }
+        }else{
+            hostiles[0] = "slime";
+            chances[0] = 100;
+        }
+        Explorer template = new Explorer("Simulant", 1, new int[]{60, 12, 10, 6, 8, 8, 5}, new Fighter());
+        long seed = Long.getLong("seed", System.nanoTime());
+        System.out.println("seed: " + seed);
+        BattleSimulator simulator = new BattleSimulator(template, hostiles, chances, danger, seed);
+        String margin = System.getProperty("margin");
+        if(margin != null)
+            System.out.println(simulator.estimate(Double.parseDouble(margin), encounters, ForkJoinPool.commonPool()));
+        else
+            System.out.println(simulator.run(encounters));
+    }
+}
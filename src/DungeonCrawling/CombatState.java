@@ -0,0 +1,551 @@
+package DungeonCrawling;
+
+import java.util.ArrayList;
+
+import Customs.Exceptions.NegativeValueArgumentException;
+import WorldComponents.Basics.ActionSet;
+import WorldComponents.Basics.Actions.*;
+import WorldComponents.Basics.Defines;
+import WorldComponents.Basics.Defines.StatId;
+import WorldComponents.Basics.Elements;
+import WorldComponents.Basics.Unit;
+import WorldComponents.Mobs.Explorer;
+import WorldComponents.Mobs.Hostiles.Boss;
+import WorldComponents.Mobs.Hostiles.Monster;
+import WorldComponents.Mobs.Hostiles.Tactics;
+
+/** CombatState object:
+ * state of every combatant of a battle stored as parallel primitive arrays indexed by combatant slot. the
+ * player always is slot PLAYER and the hostiles follow in party order. stats are stored per slot as
+ * STAT_COUNT consecutive values ordered like Defines.StatId; cooldown timers are stored per slot as
+ * ACTION_KINDS consecutive values (BASIC, SKILL, CRITICAL). the state is loaded from the units when a battle
+ * starts and written back to them when it ends; in between the battle only reads and writes these arrays
+ * so a whole encounter runs without allocating anything per turn. buffs and nerfs are kept per combatant
+ * on a bounded stack of modifiers; the current value of a stat is only recomputed from its base value on
+ * the first read after a modifier on it was pushed or expired. all the arrays are sized once for the
+ * largest battle and reused by every battle of the engine that owns the state. the order of the turns is
+ * kept by a Timeline that the state updates whenever a combatant's SPD changes or a combatant dies; the
+ * ends of cooldowns and modifiers are events of a TimingWheel keyed by the ticks of that timeline so a turn
+ * only deals with what happens then.
+ */
+public class CombatState {
+    // layout constants
+    public static final int PLAYER = 0;
+    public static final int MAX_SLOTS = 1 + BattleEngine.MAX_NUM_OF_MONSTERS;
+    public static final int STAT_COUNT = Defines.STATS.length;
+    public static final int ACTION_KINDS = 3;
+    public static final int BASIC = ActionSet.BASIC;
+    public static final int SKILL = ActionSet.SKILL;
+    public static final int CRITICAL = ActionSet.CRITICAL;
+    public static final int MAX_MODIFIERS = 8; // modifiers a combatant can have at once
+    public static final int NO_SCALE = 100; // percentage of a purely additive modifier
+    private static final int MODIFIER_EVENTS = MAX_SLOTS * ACTION_KINDS; // first payload of a modifier event
+    private static final int NO_EVENT = -1;
+    // combatants
+    int size; // number of slots in use
+    final Unit[] units;
+    // stats, [slot * STAT_COUNT + stat]
+    final int[] current;
+    final int[] max;
+    final int[] gear; // part of current and max that comes from the equipped gear; 0 for hostiles
+    final int[] base; // value of the non-HP stats without the modifiers
+    // modifiers, [slot * MAX_MODIFIERS + i] for i < modifierCount[slot]
+    final int[] modifierCount;
+    final int[] modifierStat; // ordinal of the stat the modifier changes
+    final int[] modifierAdd; // added to the base value
+    final int[] modifierScale; // percentage the value is scaled by after the additions
+    final int[] modifierEvent; // event of the wheel the modifier expires with or NO_EVENT when it lasts
+    final int[] dirty; // [slot], bit (1 << StatId.ordinal()) is set for each stat whose current value is stale
+    // flags, [slot]
+    final int[] levels;
+    final int[] elements; // elemental id of the combatant
+    final boolean[] alive;
+    final boolean[] critical;
+    // actions, [slot * ACTION_KINDS + kind]
+    final Action[] actions; // definitions only: null when the unit doesn't have that action
+    final int[] timers; // cooldown the action waits for; 0 when it is ready
+    final int[] cooldownEvent; // event of the wheel the action gets ready with
+    final int[] statMasks; // bit (1 << StatId.ordinal()) is set for each stat a buff or nerf affects
+    // action scores, [slot * ACTION_KINDS + kind]: the part that doesn't depend on the battle state and the
+    // weights of the parts that do, precomputed from the combatant's tactics when it is loaded
+    final float[] scoreBase;
+    final float[] areaWeight;
+    final float[] finishWeight;
+    final float[] healWeight;
+    // turn order
+    final Timeline timeline;
+    final TimingWheel wheel; // payload: "at" of a cooling action or MODIFIER_EVENTS + index of a modifier
+
+    /** constructor:
+     * allocates the arrays for a battle of MAX_SLOTS combatants.
+     */
+    public CombatState(){
+        this.size = 0;
+        this.units = new Unit[MAX_SLOTS];
+        this.current = new int[MAX_SLOTS * STAT_COUNT];
+        this.max = new int[MAX_SLOTS * STAT_COUNT];
+        this.gear = new int[MAX_SLOTS * STAT_COUNT];
+        this.base = new int[MAX_SLOTS * STAT_COUNT];
+        this.modifierCount = new int[MAX_SLOTS];
+        this.modifierStat = new int[MAX_SLOTS * MAX_MODIFIERS];
+        this.modifierAdd = new int[MAX_SLOTS * MAX_MODIFIERS];
+        this.modifierScale = new int[MAX_SLOTS * MAX_MODIFIERS];
+        this.modifierEvent = new int[MAX_SLOTS * MAX_MODIFIERS];
+        this.dirty = new int[MAX_SLOTS];
+        this.levels = new int[MAX_SLOTS];
+        this.elements = new int[MAX_SLOTS];
+        this.alive = new boolean[MAX_SLOTS];
+        this.critical = new boolean[MAX_SLOTS];
+        this.actions = new Action[MAX_SLOTS * ACTION_KINDS];
+        this.timers = new int[MAX_SLOTS * ACTION_KINDS];
+        this.cooldownEvent = new int[MAX_SLOTS * ACTION_KINDS];
+        this.scoreBase = new float[MAX_SLOTS * ACTION_KINDS];
+        this.areaWeight = new float[MAX_SLOTS * ACTION_KINDS];
+        this.finishWeight = new float[MAX_SLOTS * ACTION_KINDS];
+        this.healWeight = new float[MAX_SLOTS * ACTION_KINDS];
+        this.statMasks = new int[MAX_SLOTS * ACTION_KINDS];
+        this.timeline = new Timeline(MAX_SLOTS);
+        this.wheel = new TimingWheel(MAX_SLOTS * (ACTION_KINDS + MAX_MODIFIERS));
+    }
+
+    /**
+     * loads the state of the player and the hostiles at the start of a battle, puts the living ones on
+     * the timeline and schedules the end of the cooldowns their actions start with.
+     * @param player the explorer that fights.
+     * @param hostiles the party of hostiles it fights. at most MAX_SLOTS - 1 of them.
+     */
+    public void load(Explorer player, ArrayList<Monster> hostiles){
+        this.size = 1 + hostiles.size();
+        this.loadSlot(PLAYER, player);
+        for(int i = 0; i < hostiles.size(); i++){
+            this.loadSlot(i + 1, hostiles.get(i));
+        }
+        for(int slot = this.size; slot < MAX_SLOTS; slot++){
+            this.units[slot] = null; // don't keep the last battle's hostiles alive
+            this.actions[slot * ACTION_KINDS + BASIC] = null;
+            this.actions[slot * ACTION_KINDS + SKILL] = null;
+            this.actions[slot * ACTION_KINDS + CRITICAL] = null;
+        }
+        this.timeline.clear();
+        for(int slot = 0; slot < this.size; slot++){
+            if(this.alive[slot])
+                this.timeline.schedule(slot, this.current[slot * STAT_COUNT + StatId.SPD.ordinal()]);
+        }
+        this.wheel.clear();
+        for(int at = 0; at < this.size * ACTION_KINDS; at++){
+            int slot = at / ACTION_KINDS;
+            if(this.timers[at] > 0 && this.timeline.contains(slot))
+                this.cooldownEvent[at] = this.wheel.schedule(this.afterTurns(slot, this.timers[at]), at);
+        }
+    }
+
+    /**
+     * loads the state of a single unit in a slot. an explorer fights with its effective stats: the bonus
+     * of its gear is added on top of both its current and max values.
+     * @param slot the slot of the unit.
+     * @param unit the unit.
+     */
+    void loadSlot(int slot, Unit unit){
+        this.units[slot] = unit;
+        unit.stats().readCurrents(this.current, slot * STAT_COUNT);
+        if(unit instanceof Explorer){
+            ((Explorer) unit).readEffective(this.max, slot * STAT_COUNT);
+            ((Explorer) unit).body().readBonus(this.gear, slot * STAT_COUNT);
+        }else{
+            unit.stats().readMaxes(this.max, slot * STAT_COUNT);
+        }
+        for(int s = slot * STAT_COUNT; s < (slot + 1) * STAT_COUNT; s++){
+            if(!(unit instanceof Explorer))
+                this.gear[s] = 0;
+            this.current[s] += this.gear[s];
+            this.base[s] = this.current[s];
+        }
+        this.modifierCount[slot] = 0;
+        this.dirty[slot] = 0;
+        this.updateHealth(slot);
+        this.levels[slot] = unit.level().current();
+        this.elements[slot] = unit instanceof Monster ? ((Monster) unit).attribute().elementalId() : Elements.NONE;
+        ActionSet set = unit.abilities();
+        Tactics tactics = unit instanceof Monster ? ((Monster) unit).tactics() : Tactics.DEFAULT;
+        this.loadAction(slot, BASIC, set.basic(), set.timer(BASIC), tactics);
+        this.loadAction(slot, SKILL, set.skill(), set.timer(SKILL), tactics);
+        this.loadAction(slot, CRITICAL, set.critical(), set.timer(CRITICAL), tactics);
+    }
+
+    /**
+     * loads one action of a unit and precomputes its score with the unit's tactics.
+     */
+    private void loadAction(int slot, int kind, Action action, int timer, Tactics tactics){
+        int at = slot * ACTION_KINDS + kind;
+        this.actions[at] = action;
+        this.timers[at] = action == null ? 0 : timer;
+        int mask = 0;
+        String[] stats = action instanceof Buff ? ((Buff) action).toBuff() :
+            action instanceof Nerf ? ((Nerf) action).toNerf() : null;
+        if(stats != null){
+            for(String stat : stats){
+                StatId id = StatId.of(stat);
+                if(id != null)
+                    mask |= 1 << id.ordinal();
+            }
+        }
+        this.statMasks[at] = mask;
+        // features of the action that are known once and for all
+        boolean agress = action instanceof Agress;
+        int hp = 1 << StatId.HP.ordinal();
+        float affinity = slot == PLAYER || !agress ? 1f : // the player's targets vary
+            Elements.AFFINITY[action.attribute().elementalId() * Elements.COUNT + this.elements[PLAYER]];
+        float power = agress ? action.multiplier() * action.accuracy() / 100f * affinity : 0f;
+        int support = action instanceof Buff ? Integer.bitCount(mask & ~hp) : 0;
+        int hinder = action instanceof Nerf ? Integer.bitCount(mask) : 0;
+        this.scoreBase[at] = tactics.weight(Tactics.ORDER) * kind + tactics.weight(Tactics.POWER) * power +
+            tactics.weight(Tactics.SUPPORT) * support + tactics.weight(Tactics.HINDER) * hinder;
+        this.areaWeight[at] = agress && action.target() == Target.OPPX ? tactics.weight(Tactics.AREA) : 0f;
+        this.finishWeight[at] = agress ? tactics.weight(Tactics.FINISH) : 0f;
+        this.healWeight[at] = action instanceof Buff && (mask & hp) != 0 ? tactics.weight(Tactics.HEAL) : 0f;
+    }
+
+    /**
+     * writes the stats and the cooldown timers of every combatant back to its unit and updates the unit's
+     * health flags. a running cooldown is handed back as the turns of the combatant left before it ends.
+     * the modifiers still active are dropped first, then the gear bonus: HP given by the gear is lost before
+     * the explorer's own HP but the explorer keeps at least 1 HP if it survived.
+     */
+    public void writeBack(){
+        for(int slot = 0; slot < this.size; slot++){
+            this.modifierCount[slot] = 0; // their events go with the wheel below
+            this.dirty[slot] = 0;
+            for(int s = slot * STAT_COUNT; s < (slot + 1) * STAT_COUNT; s++){
+                if(s % STAT_COUNT != StatId.HP.ordinal())
+                    this.current[s] = this.base[s];
+                this.current[s] = Math.max(0, this.current[s] - this.gear[s]);
+            }
+            int hp = slot * STAT_COUNT + StatId.HP.ordinal();
+            if(this.alive[slot] && this.current[hp] == 0)
+                this.current[hp] = 1;
+            this.units[slot].stats().writeCurrents(this.current, slot * STAT_COUNT);
+            this.units[slot].healthCheck();
+            ActionSet set = this.units[slot].abilities();
+            for(int kind = BASIC; kind <= CRITICAL; kind++){
+                if(this.actions[slot * ACTION_KINDS + kind] != null)
+                    set.setTimer(kind, this.turnsLeft(slot * ACTION_KINDS + kind));
+            }
+        }
+        this.wheel.clear();
+    }
+
+    // getters
+    /**
+     * @return the number of combatants.
+     */
+    public int size(){ return this.size; }
+    /**
+     * @param slot the slot of a combatant.
+     * @return the unit in that slot.
+     */
+    public Unit unit(int slot){ return this.units[slot]; }
+    /**
+     * @param slot the slot of a combatant.
+     * @param stat the stat to read.
+     * @return the current value of the stat with the modifiers applied.
+     */
+    public int current(int slot, StatId stat){
+        this.refresh(slot);
+        return this.current[slot * STAT_COUNT + stat.ordinal()];
+    }
+    /**
+     * @param slot the slot of a combatant.
+     * @return the number of modifiers the combatant has.
+     */
+    public int modifierCount(int slot){ return this.modifierCount[slot]; }
+    /**
+     * @param slot the slot of a combatant.
+     * @param stat the stat to read.
+     * @return the max value of the stat.
+     */
+    public int max(int slot, StatId stat){ return this.max[slot * STAT_COUNT + stat.ordinal()]; }
+    /**
+     * @param slot the slot of a combatant.
+     * @return true if the combatant is alive.
+     */
+    public boolean isAlive(int slot){ return this.alive[slot]; }
+    /**
+     * @param slot the slot of a combatant.
+     * @return the elemental id of the combatant.
+     */
+    public int element(int slot){ return this.elements[slot]; }
+    /**
+     * @param slot the slot of a combatant.
+     * @return the level of the combatant.
+     */
+    public int level(int slot){ return this.levels[slot]; }
+    /**
+     * @param slot the slot of a combatant.
+     * @return true if the combatant is low on HP.
+     */
+    public boolean isCritical(int slot){ return this.critical[slot]; }
+    /**
+     * @return the turn order of the battle.
+     */
+    public Timeline timeline(){ return this.timeline; }
+    /**
+     * @return true if at least one hostile is alive.
+     */
+    public boolean hostilesAlive(){
+        for(int slot = 1; slot < this.size; slot++){
+            if(this.alive[slot])
+                return true;
+        }
+        return false;
+    }
+    /**
+     * @return the number of hostiles alive.
+     */
+    public int hostilesAliveCount(){
+        int count = 0;
+        for(int slot = 1; slot < this.size; slot++){
+            if(this.alive[slot])
+                count++;
+        }
+        return count;
+    }
+
+    // setters
+    /**
+     * updates the alive and critical flags of a combatant from its HP, like Unit.healthCheck().
+     * @param slot the slot of the combatant.
+     */
+    void updateHealth(int slot){
+        int hp = this.current[slot * STAT_COUNT + StatId.HP.ordinal()];
+        this.alive[slot] = hp > 0;
+        this.critical[slot] = hp <= this.max[slot * STAT_COUNT + StatId.HP.ordinal()] / 4;
+    }
+    /**
+     * lowers the HP of a combatant and updates its flags. a boss that still has forms left morphs instead
+     * of dying: its new form is reloaded from the Boss object. a dead combatant leaves the timeline.
+     * @param slot the slot of the combatant.
+     * @param damage the damage taken. at most the current HP.
+     * @return true if the combatant was a boss that morphed.
+     */
+    boolean hurt(int slot, int damage) throws NegativeValueArgumentException {
+        this.current[slot * STAT_COUNT + StatId.HP.ordinal()] -= damage;
+        this.updateHealth(slot);
+        if(!this.alive[slot] && this.units[slot] instanceof Boss && ((Boss) this.units[slot]).forms() > 1){
+            ((Boss) this.units[slot]).morph(); // back at full stats
+            this.units[slot].stats().readCurrents(this.current, slot * STAT_COUNT);
+            this.units[slot].stats().readMaxes(this.max, slot * STAT_COUNT);
+            System.arraycopy(this.current, slot * STAT_COUNT, this.base, slot * STAT_COUNT, STAT_COUNT);
+            for(int m = slot * MAX_MODIFIERS; m < slot * MAX_MODIFIERS + this.modifierCount[slot]; m++){
+                if(this.modifierEvent[m] != NO_EVENT)
+                    this.wheel.cancel(this.modifierEvent[m]);
+            }
+            this.modifierCount[slot] = 0; // a new form gets rid of stat changes
+            this.dirty[slot] = 0;
+            this.updateHealth(slot);
+            this.timeline.changeSpeed(slot, this.current[slot * STAT_COUNT + StatId.SPD.ordinal()]);
+            return true;
+        }
+        if(!this.alive[slot])
+            this.timeline.remove(slot);
+        return false;
+    }
+    /**
+     * pushes a temporary change to a non-HP stat of a combatant on its modifier stack. each modifier keeps
+     * its own expiry event on the wheel so stacked changes expire one by one. the stat is only marked
+     * stale: its current value is recomputed from the base value and the whole stack on the next read,
+     * except SPD which is recomputed at once to keep the timeline right. when the stack is full the
+     * modifier that would expire first is replaced.
+     * @param slot the slot of the combatant.
+     * @param stat the ordinal of the stat.
+     * @param add the amount added to the base value.
+     * @param scale the percentage the value is scaled by after the additions. NO_SCALE leaves it as is.
+     * @param turns the number of turns of the combatant the change lasts. 0 lasts until the end of the battle.
+     */
+    void modify(int slot, int stat, int add, int scale, int turns){
+        int first = slot * MAX_MODIFIERS;
+        int m = first + this.modifierCount[slot];
+        if(this.modifierCount[slot] == MAX_MODIFIERS){
+            m = first;
+            for(int i = first + 1; i < first + MAX_MODIFIERS; i++){
+                if(this.expiry(i) < this.expiry(m))
+                    m = i;
+            }
+            if(this.modifierEvent[m] != NO_EVENT)
+                this.wheel.cancel(this.modifierEvent[m]);
+            this.dirty[slot] |= 1 << this.modifierStat[m];
+        }else{
+            this.modifierCount[slot]++;
+        }
+        this.modifierStat[m] = stat;
+        this.modifierAdd[m] = add;
+        this.modifierScale[m] = scale;
+        this.modifierEvent[m] = turns == 0 || !this.timeline.contains(slot) ? NO_EVENT :
+            this.wheel.schedule(this.afterTurns(slot, turns), MODIFIER_EVENTS + m);
+        this.dirty[slot] |= 1 << stat;
+        if((this.dirty[slot] & (1 << StatId.SPD.ordinal())) != 0)
+            this.refresh(slot);
+    }
+    /**
+     * starts the cooldown of an action that was just used. the action is ready again when the wheel
+     * reaches the combatant's turn "cooldown" turns later. a cooldown still running starts over.
+     * @param slot the slot of the combatant.
+     * @param kind the kind of the action.
+     * @param cooldown the cooldown of the action in turns of the combatant.
+     */
+    void freeze(int slot, int kind, int cooldown){
+        int at = slot * ACTION_KINDS + kind;
+        if(this.timers[at] > 0)
+            this.wheel.cancel(this.cooldownEvent[at]);
+        this.timers[at] = Math.max(0, cooldown);
+        if(cooldown > 0)
+            this.cooldownEvent[at] = this.wheel.schedule(this.afterTurns(slot, cooldown), at);
+    }
+    /**
+     * handles every event of the wheel due by the current tick of the timeline: cooled down actions become
+     * ready and expired modifiers are popped. only the events that happen are looked at, whatever the
+     * number of combatants, actions and modifiers.
+     */
+    void advance(){
+        long now = this.timeline.now();
+        for(int event = this.wheel.poll(now); event >= 0; event = this.wheel.poll(now)){
+            if(event < MODIFIER_EVENTS)
+                this.timers[event] = 0;
+            else
+                this.expire(event - MODIFIER_EVENTS);
+        }
+    }
+    /**
+     * pops an expired modifier off its combatant's stack. the last modifier of the stack fills the hole.
+     * @param m the index of the modifier in the modifier arrays.
+     */
+    private void expire(int m){
+        int slot = m / MAX_MODIFIERS;
+        this.dirty[slot] |= 1 << this.modifierStat[m];
+        int last = slot * MAX_MODIFIERS + --this.modifierCount[slot];
+        if(m != last){
+            this.modifierStat[m] = this.modifierStat[last];
+            this.modifierAdd[m] = this.modifierAdd[last];
+            this.modifierScale[m] = this.modifierScale[last];
+            this.modifierEvent[m] = this.modifierEvent[last];
+            if(this.modifierEvent[m] != NO_EVENT)
+                this.wheel.setPayload(this.modifierEvent[m], MODIFIER_EVENTS + m);
+        }
+        if((this.dirty[slot] & (1 << StatId.SPD.ordinal())) != 0)
+            this.refresh(slot);
+    }
+    /**
+     * @param m the index of a modifier in the modifier arrays.
+     * @return the tick the modifier expires at; Long.MAX_VALUE if it lasts until the end of the battle.
+     */
+    private long expiry(int m){
+        return this.modifierEvent[m] == NO_EVENT ? Long.MAX_VALUE : this.wheel.due(this.modifierEvent[m]);
+    }
+    /**
+     * @param at the index of an action in the action arrays.
+     * @return the turns of its combatant left before the action is ready; 0 if it is ready. inverse of
+     * afterTurns().
+     */
+    private int turnsLeft(int at){
+        if(this.timers[at] == 0)
+            return 0;
+        int slot = at / ACTION_KINDS;
+        long period = Math.max(1, this.timeline.period(slot));
+        long ready = this.wheel.due(this.cooldownEvent[at]);
+        if(this.timeline.contains(slot)){
+            long ticks = Math.max(0, ready - this.timeline.due(slot)); // after its next turn
+            return (int) ((ticks + period - 1) / period) + 1;
+        }
+        return (int) Math.max(1, (ready - this.timeline.now() + period - 1) / period); // off the timeline
+    }
+    /**
+     * @param slot the slot of a combatant on the timeline.
+     * @param turns a number of turns of the combatant. at least 1.
+     * @return the tick of the combatant's turn "turns" turns from now at its current SPD.
+     */
+    private long afterTurns(int slot, int turns){
+        return this.timeline.due(slot) + (turns - 1) * this.timeline.period(slot);
+    }
+    /**
+     * recomputes the current value of the stale stats of a combatant: the additions of its modifiers are
+     * summed onto the base value, then the scales are applied. stats never go under 0. does nothing when no
+     * stat is stale so it is cheap to call before every read.
+     * @param slot the slot of the combatant.
+     */
+    void refresh(int slot){
+        int stale = this.dirty[slot];
+        if(stale == 0)
+            return;
+        this.dirty[slot] = 0;
+        int first = slot * MAX_MODIFIERS;
+        int end = first + this.modifierCount[slot];
+        for(int stat = 0; stat < STAT_COUNT; stat++){
+            if((stale & (1 << stat)) == 0)
+                continue;
+            int s = slot * STAT_COUNT + stat;
+            long value = this.base[s];
+            for(int m = first; m < end; m++){
+                if(this.modifierStat[m] == stat)
+                    value += this.modifierAdd[m];
+            }
+            for(int m = first; m < end; m++){
+                if(this.modifierStat[m] == stat && this.modifierScale[m] != NO_SCALE)
+                    value = value * this.modifierScale[m] / NO_SCALE;
+            }
+            this.current[s] = (int) Math.max(0, Math.min(Integer.MAX_VALUE, value));
+        }
+        if((stale & (1 << StatId.SPD.ordinal())) != 0)
+            this.timeline.changeSpeed(slot, this.current[slot * STAT_COUNT + StatId.SPD.ordinal()]);
+    }
+    /**
+     * picks the action of a combatant by scoring the usable ones with its tactics. the basic action can
+     * always be used, the skill once it is ready and the critical action once it is ready and the
+     * combatant is critical. the score of an action is its precomputed base plus its weighted features
+     * that depend on the battle: the extra opponents an agression on all of them hits, the part of their HP
+     * the opponents lost and the part of its HP the combatant lost. ties go to the lower kind. nothing is
+     * allocated.
+     * @param slot the slot of the combatant.
+     * @return the kind of the action to use or -1 if the combatant has no usable action.
+     */
+    int choose(int slot){
+        int hp = StatId.HP.ordinal();
+        int area; // extra opponents hit by an action on every opponent
+        float finish; // part of their HP the opponents lost
+        if(slot == PLAYER){
+            area = Math.max(0, this.hostilesAliveCount() - 1);
+            long current = 0;
+            long max = 0;
+            for(int hostile = 1; hostile < this.size; hostile++){
+                current += Math.max(0, this.current[hostile * STAT_COUNT + hp]);
+                max += this.max[hostile * STAT_COUNT + hp];
+            }
+            finish = max == 0 ? 0f : 1f - (float) current / max;
+        }else{
+            area = 0; // the player fights alone
+            finish = 1f - this.health(PLAYER);
+        }
+        float hurt = 1f - this.health(slot); // part of its HP the combatant lost
+        int best = -1;
+        float bestScore = 0f;
+        for(int kind = BASIC; kind <= CRITICAL; kind++){
+            int at = slot * ACTION_KINDS + kind;
+            if(this.actions[at] == null || (kind != BASIC && this.timers[at] != 0) ||
+                (kind == CRITICAL && !this.critical[slot]))
+                continue;
+            float score = this.scoreBase[at] + this.areaWeight[at] * area + this.finishWeight[at] * finish +
+                this.healWeight[at] * hurt;
+            if(best < 0 || score > bestScore){
+                best = kind;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+    /**
+     * @param slot the slot of a combatant.
+     * @return the part of its max HP the combatant has left.
+     */
+    private float health(int slot){
+        int hp = slot * STAT_COUNT + StatId.HP.ordinal();
+        return (float) Math.max(0, this.current[hp]) / Math.max(1, this.max[hp]);
+    }
+}
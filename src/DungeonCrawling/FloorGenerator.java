@@ -0,0 +1,169 @@
+package DungeonCrawling;
+
+import Customs.Exceptions.NegativeValueArgumentException;
+import Customs.Utilities.AliasTable;
+import Customs.Utilities.RandomStream;
+import WorldComponents.Basics.Defines.BlockType;
+
+/** FloorGenerator object:
+ * procedural generator of the floors of a dungeon. the whole dungeon derives from a single seed: floor N
+ * gets its own seed from the dungeon seed and N, and its layout derives from that seed only. a floor is
+ * never built as a list of blocks: the blocks are drawn one at a time as the explorer advances, so the
+ * memory used stays the same however deep the dungeon goes, and any floor can be generated again from
+ * its number at any time. deeper floors are longer and hold more danger blocks; the last floor of each
+ * stratum ends with a boss.
+ */
+public class FloorGenerator {
+    // layout constants
+    public static final int FLOORS_PER_STRATUM = 5;
+    private static final int MIN_BLOCKS = 12; // blocks of the first floor, stairs included
+    private static final int EXTRA_BLOCKS = 8; // random number of blocks added to each floor
+    private static final int BLOCKS_PER_STRATUM = 4; // blocks added to the floors of each new stratum
+    private static final int MAX_HAZARDS = 1; // hazards are rare occurences
+    // base weights of the regular blocks, in BlockType order up to CHOICE
+    private static final int[] WEIGHTS = {30, 35, 4, 20, 11};
+    private static final int DANGER_PER_FLOOR = 2; // weight added to DANGER on each floor
+    private static final int MAX_DANGER = 70; // so that deep floors still have other blocks
+    // attributes
+    private final long seed; // seed of the dungeon
+
+    /** Floor object:
+     * lazy stream of the blocks of one floor. next() draws the following block from the floor's random
+     * stream; a Floor only holds a few counters whatever its length. rewind() starts the floor over and
+     * yields the same blocks again.
+     */
+    public static class Floor{
+        // attributes
+        private final int number;
+        private final long seed;
+        private final int length; // number of blocks, stairs included
+        private final AliasTable blocks; // regular blocks of the floor
+        private final RandomStream rng;
+        private int position; // number of blocks drawn
+        private int hazards; // number of hazards drawn
+        private long blockSeed; // seed of the last block drawn
+
+        /** constructor:
+         * prepares the stream of a floor. use FloorGenerator.floor() to get one.
+         * @param number the number of the floor, from 1.
+         * @param seed the seed of the floor.
+         */
+        private Floor(int number, long seed) throws NegativeValueArgumentException {
+            this.number = number;
+            this.seed = seed;
+            int stratum = stratumOf(number);
+            RandomStream setup = new RandomStream(RandomStream.mix(seed, -2)); // apart from the blocks
+            this.length = MIN_BLOCKS + (stratum - 1) * BLOCKS_PER_STRATUM + setup.nextInt(EXTRA_BLOCKS + 1);
+            int[] weights = WEIGHTS.clone();
+            weights[BlockType.DANGER.ordinal()] = Math.min(MAX_DANGER,
+                weights[BlockType.DANGER.ordinal()] + (number - 1) * DANGER_PER_FLOOR);
+            this.blocks = new AliasTable(weights);
+            this.rng = new RandomStream(0);
+            this.rewind();
+        }
+
+        // getters
+        /**
+         * @return the number of the floor, from 1.
+         */
+        public int number(){ return this.number; }
+        /**
+         * @return the seed of the floor.
+         */
+        public long seed(){ return this.seed; }
+        /**
+         * @return the stratum of the floor, from 1.
+         */
+        public int stratum(){ return stratumOf(this.number); }
+        /**
+         * @return true if the floor is the last of its stratum and ends with a boss.
+         */
+        public boolean hasBoss(){ return this.number % FLOORS_PER_STRATUM == 0; }
+        /**
+         * @return the danger level of the floor's battles.
+         */
+        public int dangerLevel(){ return this.stratum(); }
+        /**
+         * @return the number of blocks of the floor, stairs included.
+         */
+        public int length(){ return this.length; }
+        /**
+         * @return the number of blocks drawn so far.
+         */
+        public int position(){ return this.position; }
+        /**
+         * @return true until the stairs block has been drawn.
+         */
+        public boolean hasNext(){ return this.position < this.length; }
+        /**
+         * @return the seed of the event of the last block drawn, eg: the seed of its battle.
+         */
+        public long blockSeed(){ return this.blockSeed; }
+
+        // other methods
+        /**
+         * draws the next block of the floor.
+         * @return the type of the block.
+         * @throws IllegalStateException if the stairs block was already drawn.
+         */
+        public BlockType next(){
+            if(!this.hasNext())
+                throw new IllegalStateException("floor " + this.number + " has no block left");
+            this.blockSeed = RandomStream.mix(this.seed, this.position);
+            this.position++;
+            if(this.position == this.length)
+                return this.hasBoss() ? BlockType.BOSS_STAIRS : BlockType.STAIRS;
+            BlockType type = BlockType.values()[this.blocks.next(this.rng)];
+            if(type == BlockType.HAZARD && this.hazards++ >= MAX_HAZARDS)
+                type = BlockType.DANGER; // the floor had its share of special hostiles
+            return type;
+        }
+        /**
+         * starts the floor over from its first block.
+         */
+        public void rewind(){
+            this.rng.reseed(RandomStream.mix(this.seed, -1)); // apart from the block seeds
+            this.position = 0;
+            this.hazards = 0;
+            this.blockSeed = 0;
+        }
+    }
+
+    /** constructor:
+     * expects the seed the whole dungeon derives from.
+     * @param seed the seed of the dungeon.
+     */
+    public FloorGenerator(long seed){
+        this.seed = seed;
+    }
+
+    // getters
+    /**
+     * @return the seed of the dungeon.
+     */
+    public long seed(){ return this.seed; }
+    /**
+     * @param number the number of a floor, from 1.
+     * @return the seed of the floor.
+     */
+    public long floorSeed(int number){ return RandomStream.mix(this.seed, number); }
+    /**
+     * @param number the number of a floor, from 1.
+     * @return the stratum of the floor, from 1.
+     */
+    public static int stratumOf(int number){ return (number - 1) / FLOORS_PER_STRATUM + 1; }
+
+    // other methods
+    /**
+     * generates a floor, ready to stream its blocks from the first one. calling it again with the same
+     * number gives the same floor.
+     * @param number the number of the floor, from 1.
+     * @return the Floor.
+     * @throws NegativeValueArgumentException if number is less than 1.
+     */
+    public Floor floor(int number) throws NegativeValueArgumentException {
+        if(number < 1)
+            throw new NegativeValueArgumentException("floors are numbered from 1");
+        return new Floor(number, this.floorSeed(number));
+    }
+}
@@ -0,0 +1,230 @@
+package DungeonCrawling;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import Customs.Utilities.AliasTable;
+import Customs.Utilities.ContentRegistry;
+import Customs.Utilities.HostilePool;
+
+/** FloorLoader object:
+ * prepares floors in the background so that going down the stairs doesn't stall the game thread. when
+ * the explorer gets close to the stairs of a floor, the next floor is prepared on a daemon thread: its
+ * layout is generated, its hostiles are decoded from the registry, its spawn table is built and a pool
+ * of hostiles is spawned ahead for its battles. the prepared floor is published with a single atomic
+ * swap and taken by the game thread when it reaches the floor; a BattleEngine then adopts it through
+ * BattleEngine.setFloor(). take() never waits: if the floor isn't ready yet it returns null and the game
+ * shows a loading state until a later call hands the floor over. prefetch() and take() must be called from
+ * the game thread only; prepare() builds a floor on the calling thread for code that can wait.
+ */
+public class FloorLoader {
+    // how many blocks before the stairs the next floor starts being prepared
+    public static final int PREFETCH_DISTANCE = 3;
+    // attributes
+    private final FloorGenerator generator;
+    private final ContentRegistry content;
+    private final Roster roster;
+    private final ExecutorService executor; // one daemon thread: floors are prepared one at a time
+    private final AtomicReference<PreparedFloor> ready; // the prepared floor, handed over by swap
+    private Future<?> pending; // preparation in progress, game thread only
+    private int pendingNumber; // floor being prepared, game thread only
+
+    /** Roster interface:
+     * tells which hostiles live on each floor.
+     */
+    public interface Roster{
+        /**
+         * @param number the number of a floor, from 1.
+         * @return the hostiles of that floor.
+         */
+        Setup setup(int number) throws Exception;
+    }
+
+    /** Setup object:
+     * the hostiles of a floor: the regular ones with their chances of encounter and the boss, if any.
+     */
+    public static class Setup{
+        // attributes
+        private final String[] hostilesList;
+        private final int[] hostilesChances;
+        private final String boss;
+
+        /** constructor:
+         * @param hostilesList the names of the regular hostiles.
+         * @param hostilesChances the chances of encounter of each.
+         * @param boss the name of the boss or null.
+         */
+        public Setup(String[] hostilesList, int[] hostilesChances, String boss){
+            this.hostilesList = hostilesList.clone();
+            this.hostilesChances = hostilesChances.clone();
+            this.boss = boss;
+        }
+
+        // getters
+        /**
+         * @return the names of the regular hostiles.
+         */
+        public String[] hostilesList(){ return this.hostilesList; }
+        /**
+         * @return the chances of encounter of each regular hostile.
+         */
+        public int[] hostilesChances(){ return this.hostilesChances; }
+        /**
+         * @return the name of the boss or null.
+         */
+        public String boss(){ return this.boss; }
+    }
+
+    /** PreparedFloor object:
+     * everything a floor needs before its first block: the stream of its blocks, its hostiles, its spawn
+     * table and a pool of hostiles already spawned. it is built by one thread and then only used by the
+     * game thread.
+     */
+    public static class PreparedFloor{
+        // attributes
+        private final FloorGenerator.Floor floor;
+        private final Setup setup;
+        private final AliasTable spawnTable;
+        private final HostilePool pool;
+        private final ContentRegistry content;
+
+        private PreparedFloor(FloorGenerator.Floor floor, Setup setup, AliasTable spawnTable, HostilePool pool,
+                              ContentRegistry content)
+        {
+            this.floor = floor;
+            this.setup = setup;
+            this.spawnTable = spawnTable;
+            this.pool = pool;
+            this.content = content;
+        }
+
+        // getters
+        /**
+         * @return the stream of the floor's blocks.
+         */
+        public FloorGenerator.Floor floor(){ return this.floor; }
+        /**
+         * @return the number of the floor.
+         */
+        public int number(){ return this.floor.number(); }
+        /**
+         * @return the hostiles of the floor.
+         */
+        public Setup setup(){ return this.setup; }
+        AliasTable spawnTable(){ return this.spawnTable; }
+        HostilePool pool(){ return this.pool; }
+        ContentRegistry content(){ return this.content; }
+    }
+
+    /** constructor:
+     * expects where the floors come from.
+     * @param generator the generator of the dungeon's floors.
+     * @param content the registry hostiles are spawned from.
+     * @param roster the hostiles of each floor.
+     */
+    public FloorLoader(FloorGenerator generator, ContentRegistry content, Roster roster){
+        this.generator = generator;
+        this.content = content;
+        this.roster = roster;
+        // a single platform thread: virtual threads need JDK 21 and the project is on language level 15
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "floor-loader");
+            thread.setDaemon(true); // never keeps the game from exiting
+            return thread;
+        });
+        this.ready = new AtomicReference<PreparedFloor>(null);
+        this.pending = null;
+        this.pendingNumber = 0;
+    }
+
+    // other methods
+    /**
+     * prepares a floor on the calling thread.
+     * @param number the number of the floor.
+     * @return the prepared floor.
+     * @throws Exception if the floor's hostiles couldn't be loaded.
+     */
+    public PreparedFloor prepare(int number) throws Exception {
+        FloorGenerator.Floor floor = this.generator.floor(number);
+        Setup setup = this.roster.setup(number);
+        HostilePool pool = new HostilePool(this.content);
+        AliasTable spawnTable = null;
+        if(setup.hostilesList().length > 0){
+            spawnTable = BattleEngine.spawnTable(setup.hostilesList(), setup.hostilesChances());
+            for(String id : setup.hostilesList()){
+                pool.reserve(id, BattleEngine.MAX_NUM_OF_MONSTERS);
+            }
+        }
+        if(setup.boss() != null){
+            pool.reserve(setup.boss(), 1);
+        }
+        return new PreparedFloor(floor, setup, spawnTable, pool, this.content);
+    }
+    /**
+     * starts preparing a floor in the background unless it is already prepared or being prepared.
+     * @param number the number of the floor.
+     */
+    public void prefetch(int number){
+        if(this.pending != null && this.pendingNumber == number)
+            return;
+        this.pendingNumber = number;
+        this.pending = this.executor.submit(() -> {
+            this.ready.set(this.prepare(number)); // the swap publishes the whole floor
+            return null;
+        });
+    }
+    /**
+     * prefetches the floor after "current" once the explorer is PREFETCH_DISTANCE blocks away from its
+     * stairs or closer. call it after each block.
+     * @param current the floor being explored.
+     */
+    public void approach(FloorGenerator.Floor current){
+        if(current.length() - current.position() <= PREFETCH_DISTANCE)
+            this.prefetch(current.number() + 1);
+    }
+    /**
+     * hands a prepared floor over to the game thread without ever blocking it. if the floor is still being
+     * prepared, or wasn't prefetched and starts being prepared now, null is returned: the game shows a
+     * loading state and calls take() again on a later frame.
+     * @param number the number of the floor.
+     * @return the prepared floor or null while it isn't ready.
+     * @throws Exception if the floor's hostiles couldn't be loaded.
+     */
+    public PreparedFloor take(int number) throws Exception {
+        PreparedFloor floor = this.claim(number);
+        if(floor != null)
+            return floor;
+        if(this.pending != null && this.pendingNumber == number && this.pending.isDone()){
+            Future<?> done = this.pending;
+            this.pending = null;
+            try{
+                done.get(); // doesn't wait: the task is done
+            }catch (ExecutionException err){
+                throw err.getCause() instanceof Exception ? (Exception) err.getCause() : err;
+            }
+            return this.claim(number); // published between the first claim and isDone()
+        }
+        this.prefetch(number); // nothing happens if the floor is already being prepared
+        return null;
+    }
+    /**
+     * takes the published floor if it is floor "number".
+     * @return the floor or null if it isn't published.
+     */
+    private PreparedFloor claim(int number){
+        PreparedFloor floor = this.ready.get();
+        if(floor == null || floor.number() != number || !this.ready.compareAndSet(floor, null))
+            return null;
+        this.pending = null;
+        return floor;
+    }
+    /**
+     * stops the background thread. floors can still be built with prepare().
+     */
+    public void shutdown(){
+        this.executor.shutdownNow();
+    }
+}
@@ -0,0 +1,292 @@
+package DungeonCrawling;
+
+import java.util.HashMap;
+
+import Customs.Exceptions.FormulaSyntaxException;
+import Customs.Utilities.JsonIO;
+import WorldComponents.Basics.Defines;
+
+/** Formulas object:
+ * the set of formulas the battle engine resolves actions with. formulas are game data: their expressions
+ * are read from the Formulas resources folder so designers can change them without rebuilding the game.
+ * each expression is compiled once into a tree of Formula nodes whose variables are already resolved to
+ * indexes of a values array; evaluating a formula for a hit is then a few virtual calls and array reads
+ * without any parsing or allocation. a Formulas object is never modified once built so it can be shared
+ * by every thread.
+ */
+public class Formulas {
+    // formula names, one data file each
+    public static final String PHYSICAL = "physical";
+    public static final String SPECIAL = "special";
+    public static final String HEAL = "heal";
+    public static final String BUFF = "buff";
+    public static final String NERF = "nerf";
+    // indexes of the variables in the values array
+    public static final int MULTIPLIER = 0;
+    public static final int AFFINITY = 1;
+    public static final int ACCURACY = 2;
+    public static final int STAT = 3; // current value of the stat changed by a buff or nerf
+    public static final int MAX_STAT = 4; // max value of the stat changed by a buff or nerf
+    public static final int USER_LEVEL = 5;
+    public static final int TARGET_LEVEL = 6;
+    public static final int USER = 7; // USER + StatId.ordinal() is the current value of a user stat
+    public static final int USER_MAX = USER + Defines.STATS.length;
+    public static final int TARGET = USER_MAX + Defines.STATS.length;
+    public static final int TARGET_MAX = TARGET + Defines.STATS.length;
+    public static final int VARIABLE_COUNT = TARGET_MAX + Defines.STATS.length;
+    private static final HashMap<String, Integer> VARIABLES = new HashMap<String, Integer>();
+    private static volatile Formulas shared = null;
+    // attributes
+    private final Formula physical;
+    private final Formula special;
+    private final Formula heal;
+    private final Formula buff;
+    private final Formula nerf;
+
+    static {
+        VARIABLES.put("multiplier", MULTIPLIER);
+        VARIABLES.put("affinity", AFFINITY);
+        VARIABLES.put("accuracy", ACCURACY);
+        VARIABLES.put("stat", STAT);
+        VARIABLES.put("maxStat", MAX_STAT);
+        VARIABLES.put("user.level", USER_LEVEL);
+        VARIABLES.put("target.level", TARGET_LEVEL);
+        for(int i = 0; i < Defines.STATS.length; i++){
+            VARIABLES.put("user." + Defines.STATS[i], USER + i);
+            VARIABLES.put("user.max" + Defines.STATS[i], USER_MAX + i);
+            VARIABLES.put("target." + Defines.STATS[i], TARGET + i);
+            VARIABLES.put("target.max" + Defines.STATS[i], TARGET_MAX + i);
+        }
+    }
+
+    /** Formula interface:
+     * a compiled expression. it is evaluated on an array of VARIABLE_COUNT values.
+     */
+    public interface Formula{
+        double eval(double[] values);
+    }
+
+    /** Constant object:
+     * a formula node that always evaluates to the same value. used to fold constant sub-expressions.
+     */
+    private static class Constant implements Formula{
+        private final double value;
+
+        Constant(double value){
+            this.value = value;
+        }
+
+        public double eval(double[] values){
+            return this.value;
+        }
+    }
+
+    /** constructor:
+     * expects the compiled formulas.
+     */
+    private Formulas(Formula physical, Formula special, Formula heal, Formula buff, Formula nerf){
+        this.physical = physical;
+        this.special = special;
+        this.heal = heal;
+        this.buff = buff;
+        this.nerf = nerf;
+    }
+
+    /**
+     * reads and compiles every formula of the Formulas resources folder.
+     * @return the built Formulas.
+     * @throws Exception when a formula is missing or isn't a valid expression.
+     */
+    public static Formulas load() throws Exception {
+        return new Formulas(compile(JsonIO.loadFormula(PHYSICAL)), compile(JsonIO.loadFormula(SPECIAL)),
+            compile(JsonIO.loadFormula(HEAL)), compile(JsonIO.loadFormula(BUFF)), compile(JsonIO.loadFormula(NERF)));
+    }
+    /**
+     * returns the formulas of the game resources. they are loaded on the first call.
+     * @return the shared Formulas.
+     * @throws Exception when a formula is missing or isn't a valid expression.
+     */
+    public static Formulas shared() throws Exception {
+        Formulas formulas = shared;
+        if(formulas == null){
+            synchronized (Formulas.class){
+                formulas = shared;
+                if(formulas == null){
+                    formulas = load();
+                    shared = formulas;
+                }
+            }
+        }
+        return formulas;
+    }
+
+    // getters
+    /**
+     * @return the damage formula of physical agressions.
+     */
+    public Formula physical(){ return this.physical; }
+    /**
+     * @return the damage formula of special agressions.
+     */
+    public Formula special(){ return this.special; }
+    /**
+     * @return the formula of the HP restored by buffs on HP.
+     */
+    public Formula heal(){ return this.heal; }
+    /**
+     * @return the formula of the amount a buff adds to a stat.
+     */
+    public Formula buff(){ return this.buff; }
+    /**
+     * @return the formula of the amount a nerf removes from a stat.
+     */
+    public Formula nerf(){ return this.nerf; }
+
+    // compilation
+    /**
+     * compiles an expression into a Formula. see the guide of the Formulas resources folder for the syntax.
+     * @param expression the expression to compile.
+     * @return the compiled Formula.
+     * @throws FormulaSyntaxException when the expression isn't valid.
+     */
+    public static Formula compile(String expression) throws FormulaSyntaxException {
+        if(expression == null){
+            throw new FormulaSyntaxException("a formula needs an expression.");
+        }
+        Parser parser = new Parser(expression);
+        Formula formula = parser.sum();
+        parser.skipSpaces();
+        if(parser.at < expression.length()){
+            throw new FormulaSyntaxException("unexpected '" + expression.charAt(parser.at) + "' at " + parser.at +
+                " in \"" + expression + "\".");
+        }
+        return formula;
+    }
+
+    /** Parser object:
+     * recursive descent parser that builds the Formula tree of an expression.
+     * sum := product (('+' | '-') product)*
+     * product := unary (('*' | '/') unary)*
+     * unary := '-' unary | number | name | name '(' sum (',' sum)* ')' | '(' sum ')'
+     */
+    private static class Parser{
+        private final String text;
+        private int at;
+
+        Parser(String text){
+            this.text = text;
+            this.at = 0;
+        }
+
+        void skipSpaces(){
+            while(this.at < this.text.length() && Character.isWhitespace(this.text.charAt(this.at)))
+                this.at++;
+        }
+        boolean accept(char c){
+            this.skipSpaces();
+            if(this.at < this.text.length() && this.text.charAt(this.at) == c){
+                this.at++;
+                return true;
+            }
+            return false;
+        }
+        void expect(char c) throws FormulaSyntaxException {
+            if(!this.accept(c))
+                throw new FormulaSyntaxException("expected '" + c + "' at " + this.at + " in \"" + this.text + "\".");
+        }
+
+        Formula sum() throws FormulaSyntaxException {
+            Formula left = this.product();
+            while(true){
+                if(this.accept('+')){
+                    Formula a = left, b = this.product();
+                    left = fold(a, b, values -> a.eval(values) + b.eval(values));
+                }else if(this.accept('-')){
+                    Formula a = left, b = this.product();
+                    left = fold(a, b, values -> a.eval(values) - b.eval(values));
+                }else
+                    return left;
+            }
+        }
+        Formula product() throws FormulaSyntaxException {
+            Formula left = this.unary();
+            while(true){
+                if(this.accept('*')){
+                    Formula a = left, b = this.unary();
+                    left = fold(a, b, values -> a.eval(values) * b.eval(values));
+                }else if(this.accept('/')){
+                    Formula a = left, b = this.unary();
+                    left = fold(a, b, values -> a.eval(values) / b.eval(values));
+                }else
+                    return left;
+            }
+        }
+        Formula unary() throws FormulaSyntaxException {
+            if(this.accept('-')){
+                Formula a = this.unary();
+                return fold(a, a, values -> -a.eval(values));
+            }
+            if(this.accept('(')){
+                Formula inner = this.sum();
+                this.expect(')');
+                return inner;
+            }
+            this.skipSpaces();
+            int start = this.at;
+            if(start < this.text.length() && (Character.isDigit(this.text.charAt(start)) || this.text.charAt(start) == '.')){
+                while(this.at < this.text.length() &&
+                    (Character.isDigit(this.text.charAt(this.at)) || this.text.charAt(this.at) == '.'))
+                    this.at++;
+                try{
+                    return new Constant(Double.parseDouble(this.text.substring(start, this.at)));
+                }catch (NumberFormatException err){
+                    throw new FormulaSyntaxException(this.text.substring(start, this.at) + " is not a number.");
+                }
+            }
+            while(this.at < this.text.length() &&
+                (Character.isLetterOrDigit(this.text.charAt(this.at)) || this.text.charAt(this.at) == '.'))
+                this.at++;
+            String name = this.text.substring(start, this.at);
+            if(name.isEmpty()){
+                throw new FormulaSyntaxException("expected a value at " + start + " in \"" + this.text + "\".");
+            }
+            if(this.accept('('))
+                return this.function(name);
+            Integer index = VARIABLES.get(name);
+            if(index == null){
+                throw new FormulaSyntaxException(name + " is not a known variable.");
+            }
+            int i = index;
+            return values -> values[i];
+        }
+        Formula function(String name) throws FormulaSyntaxException {
+            Formula a = this.sum();
+            Formula b = this.accept(',') ? this.sum() : null;
+            this.expect(')');
+            boolean binary = name.equals("min") || name.equals("max") || name.equals("pow");
+            if(binary != (b != null)){
+                throw new FormulaSyntaxException(name + "() doesn't take " + (b == null ? 1 : 2) + " arguments.");
+            }
+            return switch (name){
+                case "min" -> fold(a, b, values -> Math.min(a.eval(values), b.eval(values)));
+                case "max" -> fold(a, b, values -> Math.max(a.eval(values), b.eval(values)));
+                case "pow" -> fold(a, b, values -> Math.pow(a.eval(values), b.eval(values)));
+                case "floor" -> fold(a, a, values -> Math.floor(a.eval(values)));
+                case "ceil" -> fold(a, a, values -> Math.ceil(a.eval(values)));
+                case "round" -> fold(a, a, values -> Math.floor(a.eval(values) + .5)); // halves go up like Math.round
+                case "abs" -> fold(a, a, values -> Math.abs(a.eval(values)));
+                case "sqrt" -> fold(a, a, values -> Math.sqrt(a.eval(values)));
+                default -> {throw new FormulaSyntaxException(name + " is not a known function.");}
+            };
+        }
+
+        /**
+         * @return a Constant with the value of "node" when both operands are constants; "node" else wise.
+         */
+        private static Formula fold(Formula a, Formula b, Formula node){
+            if(a instanceof Constant && b instanceof Constant)
+                return new Constant(node.eval(null));
+            return node;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package DungeonCrawling;
+
+/** Timeline object:
+ * active time scheduler of a battle. every living combatant is due to act at some point of the battle's
+ * clock; the faster the combatant, the sooner its next action comes once it has acted: a unit with SPD s
+ * acts every TICKS_PER_ACTION / s ticks. the due combatants are kept in an indexed binary min-heap of slots
+ * ordered by due time, then by slot, so picking the next actor, rescheduling a combatant whose SPD changed
+ * and removing a dead one all take O(log n) and never allocate. a timeline belongs to the CombatState of
+ * a single battle and as such is confined to one thread: it uses no lock at all.
+ */
+public class Timeline {
+    // ticks a unit with 1 SPD waits between two actions. divisible by every speed from 1 to 16 so that
+    // common speeds get exact intervals
+    public static final long TICKS_PER_ACTION = 720720L;
+    // attributes
+    private final int[] heap; // slots, heap ordered
+    private final int[] position; // position[slot] is the index of the slot in heap or -1
+    private final long[] due; // due[slot] is the tick the slot acts at
+    private final int[] speed; // speed[slot] is the SPD the slot was scheduled with
+    private int count; // number of slots in heap
+    private long now; // tick of the last action
+
+    /** constructor:
+     * allocates a timeline for up to "slots" combatants.
+     * @param slots the number of combatant slots.
+     */
+    public Timeline(int slots){
+        this.heap = new int[slots];
+        this.position = new int[slots];
+        this.due = new long[slots];
+        this.speed = new int[slots];
+        this.clear();
+    }
+
+    // getters
+    /**
+     * @return the number of combatants on the timeline.
+     */
+    public int size(){ return this.count; }
+    /**
+     * @return the tick of the last action.
+     */
+    public long now(){ return this.now; }
+    /**
+     * @param slot the slot of a combatant.
+     * @return true if the combatant is on the timeline.
+     */
+    public boolean contains(int slot){ return this.position[slot] >= 0; }
+    /**
+     * @param slot the slot of a combatant on the timeline.
+     * @return the tick the combatant acts at.
+     */
+    public long due(int slot){ return this.due[slot]; }
+    /**
+     * @param slot the slot of a combatant.
+     * @return the ticks between two actions of the combatant at its current SPD.
+     */
+    public long period(int slot){ return interval(this.speed[slot]); }
+    /**
+     * @return the slot of the next combatant to act without removing it. -1 if the timeline is empty.
+     */
+    public int peek(){ return this.count == 0 ? -1 : this.heap[0]; }
+
+    // setters
+    /**
+     * empties the timeline and resets its clock.
+     */
+    void clear(){
+        for(int slot = 0; slot < this.position.length; slot++){
+            this.position[slot] = -1;
+        }
+        this.count = 0;
+        this.now = 0;
+    }
+    /**
+     * puts a combatant on the timeline. it acts after a full interval of its speed.
+     * @param slot the slot of the combatant. must not already be on the timeline.
+     * @param spd the SPD of the combatant.
+     */
+    void schedule(int slot, int spd){
+        this.speed[slot] = spd;
+        this.due[slot] = this.now + interval(spd);
+        int i = this.count++;
+        this.heap[i] = slot;
+        this.position[slot] = i;
+        this.siftUp(i);
+    }
+    /**
+     * advances the clock to the next combatant to act and schedules its following action one interval
+     * later.
+     * @return the slot of the combatant whose turn it is. -1 if the timeline is empty.
+     */
+    int next(){
+        if(this.count == 0)
+            return -1;
+        int slot = this.heap[0];
+        this.now = this.due[slot];
+        this.due[slot] += interval(this.speed[slot]);
+        this.siftDown(0); // the root can only move away from the top
+        return slot;
+    }
+    /**
+     * reschedules a combatant whose SPD changed: the time left before its next action is scaled by
+     * old SPD / new SPD so a faster combatant moves up the timeline (decrease-key) and a slower one moves
+     * down.
+     * @param slot the slot of the combatant.
+     * @param spd the new SPD of the combatant.
+     */
+    void changeSpeed(int slot, int spd){
+        int old = this.speed[slot];
+        this.speed[slot] = spd;
+        int i = this.position[slot];
+        if(i < 0 || old == spd)
+            return;
+        long left = this.due[slot] - this.now;
+        this.due[slot] = this.now + left * Math.max(1, old) / Math.max(1, spd);
+        if(spd > old)
+            this.siftUp(i);
+        else
+            this.siftDown(i);
+    }
+    /**
+     * takes a combatant off the timeline, when it dies.
+     * @param slot the slot of the combatant. nothing happens if it isn't on the timeline.
+     */
+    void remove(int slot){
+        int i = this.position[slot];
+        if(i < 0)
+            return;
+        this.position[slot] = -1;
+        int last = this.heap[--this.count];
+        if(i == this.count)
+            return; // removed the last leaf
+        this.heap[i] = last;
+        this.position[last] = i;
+        this.siftUp(i);
+        this.siftDown(this.position[last]);
+    }
+
+    // other methods
+    /**
+     * @param spd the SPD of a combatant.
+     * @return the ticks between two actions of the combatant. units with no SPD act as if they had 1.
+     */
+    private static long interval(int spd){
+        return TICKS_PER_ACTION / Math.max(1, spd);
+    }
+    /**
+     * @return true if slot a acts before slot b: sooner first, then lower slot first.
+     */
+    private boolean before(int a, int b){
+        return this.due[a] < this.due[b] || (this.due[a] == this.due[b] && a < b);
+    }
+    private void siftUp(int i){
+        int slot = this.heap[i];
+        while(i > 0){
+            int parent = (i - 1) >>> 1;
+            if(!this.before(slot, this.heap[parent]))
+                break;
+            this.heap[i] = this.heap[parent];
+            this.position[this.heap[i]] = i;
+            i = parent;
+        }
+        this.heap[i] = slot;
+        this.position[slot] = i;
+    }
+    private void siftDown(int i){
+        int slot = this.heap[i];
+        while(true){
+            int child = 2 * i + 1;
+            if(child >= this.count)
+                break;
+            if(child + 1 < this.count && this.before(this.heap[child + 1], this.heap[child]))
+                child++;
+            if(!this.before(this.heap[child], slot))
+                break;
+            this.heap[i] = this.heap[child];
+            this.position[this.heap[i]] = i;
+            i = child;
+        }
+        this.heap[i] = slot;
+        this.position[slot] = i;
+    }
+}
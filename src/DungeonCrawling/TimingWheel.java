@@ -0,0 +1,158 @@
+package DungeonCrawling;
+
+/** TimingWheel object:
+ * hashed timing wheel of the events of a battle that happen at a given tick of its Timeline: cooldowns
+ * that run out and modifiers that expire. the wheel is a ring of BUCKETS lists; an event due at tick t
+ * goes in the list of bucket (t / RESOLUTION) % BUCKETS, so scheduling and cancelling an event take O(1)
+ * and moving the clock forward only looks at the buckets the clock went through. an event that is due
+ * more than a turn of the wheel later stays in its bucket until the clock reaches it. events are kept in
+ * parallel primitive arrays as doubly linked lists with a free list, sized once for the most events a
+ * battle can have: the wheel never allocates. like the Timeline, it belongs to the CombatState of a single
+ * battle and as such is confined to one thread.
+ */
+public class TimingWheel {
+    public static final int BUCKETS = 256; // a power of 2
+    public static final long RESOLUTION = 4096L; // ticks per bucket
+    private static final int NONE = -1;
+    // attributes
+    private final int[] heads; // heads[bucket] is the first event of the bucket or NONE
+    private final long[] due; // due[event] is the tick the event happens at
+    private final int[] payload; // payload[event] is the value given back when the event happens
+    private final int[] next;
+    private final int[] previous;
+    private final int[] bucket; // bucket[event] is the bucket of the event or NONE when it is free
+    private int free; // first free event
+    private int count; // number of scheduled events
+    private long cursor; // first bucket number not fully handled yet
+
+    /** constructor:
+     * allocates a wheel for up to "capacity" events scheduled at once.
+     * @param capacity the most events scheduled at once.
+     */
+    public TimingWheel(int capacity){
+        this.heads = new int[BUCKETS];
+        this.due = new long[capacity];
+        this.payload = new int[capacity];
+        this.next = new int[capacity];
+        this.previous = new int[capacity];
+        this.bucket = new int[capacity];
+        this.clear();
+    }
+
+    // getters
+    /**
+     * @return the number of scheduled events.
+     */
+    public int size(){ return this.count; }
+    /**
+     * @param event an event scheduled on the wheel.
+     * @return the tick the event happens at.
+     */
+    public long due(int event){ return this.due[event]; }
+    /**
+     * @param event an event scheduled on the wheel.
+     * @return the payload of the event.
+     */
+    public int payload(int event){ return this.payload[event]; }
+
+    // setters
+    /**
+     * cancels every event and resets the clock of the wheel.
+     */
+    void clear(){
+        for(int b = 0; b < BUCKETS; b++){
+            this.heads[b] = NONE;
+        }
+        for(int e = 0; e < this.next.length; e++){
+            this.next[e] = e + 1 < this.next.length ? e + 1 : NONE;
+            this.bucket[e] = NONE;
+        }
+        this.free = this.next.length > 0 ? 0 : NONE;
+        this.count = 0;
+        this.cursor = 0;
+    }
+    /**
+     * schedules an event. an event due before the clock happens on the next poll.
+     * @param at the tick the event happens at.
+     * @param value the payload given back by poll when the event happens. must not be negative.
+     * @return the id of the event, to cancel it or change its payload.
+     * @throws IllegalStateException when the wheel is full.
+     */
+    int schedule(long at, int value){
+        int e = this.free;
+        if(e == NONE)
+            throw new IllegalStateException("the timing wheel is full");
+        this.free = this.next[e];
+        this.due[e] = at;
+        this.payload[e] = value;
+        int b = (int) (Math.max(at / RESOLUTION, this.cursor) & (BUCKETS - 1));
+        this.bucket[e] = b;
+        this.previous[e] = NONE;
+        this.next[e] = this.heads[b];
+        if(this.heads[b] != NONE)
+            this.previous[this.heads[b]] = e;
+        this.heads[b] = e;
+        this.count++;
+        return e;
+    }
+    /**
+     * changes the payload of a scheduled event.
+     * @param event the id of the event.
+     * @param value the new payload. must not be negative.
+     */
+    void setPayload(int event, int value){
+        this.payload[event] = value;
+    }
+    /**
+     * cancels a scheduled event.
+     * @param event the id of the event. nothing happens if it already happened or was cancelled.
+     */
+    void cancel(int event){
+        if(this.bucket[event] == NONE)
+            return;
+        this.unlink(event);
+    }
+    /**
+     * moves the clock of the wheel forward to "now" and takes out one of the events due by then. call
+     * it until it returns -1 to handle every event due; the events of a same bucket come out in no
+     * particular order.
+     * @param now the current tick. never smaller than on the previous call.
+     * @return the payload of an event due at or before now; -1 if there is none left.
+     */
+    int poll(long now){
+        long target = now / RESOLUTION;
+        if(target - this.cursor >= BUCKETS)
+            this.cursor = target - BUCKETS + 1; // every bucket gets looked at once anyway
+        while(this.count > 0){
+            int b = (int) (this.cursor & (BUCKETS - 1));
+            for(int e = this.heads[b]; e != NONE; e = this.next[e]){
+                if(this.due[e] <= now){
+                    this.unlink(e);
+                    return this.payload[e];
+                }
+            }
+            if(this.cursor == target)
+                break; // the current bucket may still get events due later this bucket
+            this.cursor++;
+        }
+        return NONE;
+    }
+
+    // other methods
+    /**
+     * takes an event out of its bucket and gives it back to the free list.
+     */
+    private void unlink(int e){
+        int b = this.bucket[e];
+        if(this.previous[e] != NONE)
+            this.next[this.previous[e]] = this.next[e];
+        else
+            this.heads[b] = this.next[e];
+        if(this.next[e] != NONE)
+            this.previous[this.next[e]] = this.previous[e];
+        this.bucket[e] = NONE;
+        this.next[e] = this.free;
+        this.free = e;
+        this.count--;
+    }
+}
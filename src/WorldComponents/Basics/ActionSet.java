@@ -8,13 +8,19 @@ import Customs.Exceptions.NullActionArgumentException;
  * to fight.json in a battle. The action set is empty by default. it has to be set up for particular units
  * like hostiles when they are instantiated. the set is made of 3 separate actions: the basic action
  * which the unit can perform at all times, the skill action that the unit can perform only when this
- * is ready and the critical action that the unit performs once they reach a critical state.
+ * is ready and the critical action that the unit performs once they reach a critical state. actions
+ * are shared immutable definitions so setting one copies nothing: the set only keeps the cooldown timer
+ * of each of its 3 actions in a small int array, indexed by BASIC, SKILL and CRITICAL.
  */
 public class ActionSet{
+    public static final int BASIC = 0;
+    public static final int SKILL = 1;
+    public static final int CRITICAL = 2;
     // attributes
     private Action basic;
     private Action skill;
     private Action critical;
+    private final int[] timers; // cooldown timer of each action; 0 when it is ready
 
     /**constructor:
      * by default an action is empty.
@@ -23,6 +29,7 @@ public class ActionSet{
         this.basic = null;
         this.skill = null;
         this.critical = null;
+        this.timers = new int[3];
     }
 
     // getter
@@ -44,6 +51,13 @@ public class ActionSet{
     public Action critical(){
         return this.critical;
     }
+    /**
+     * @param kind BASIC, SKILL or CRITICAL.
+     * @return the cooldown timer of that action.
+     */
+    public int timer(int kind){
+        return this.timers[kind];
+    }
 
     // setters
     /**
@@ -53,8 +67,8 @@ public class ActionSet{
      */
     public void setBasic(Action newAction) throws NullActionArgumentException {
         if(newAction != null) {
-            Action old = this.basic; // reassign pointer of old action
-            this.basic = newAction.clone();
+            this.basic = newAction; // definitions are shared
+            this.timers[BASIC] = newAction.cooldown(); // a new action starts cooling down
         }else
             throw new NullActionArgumentException("Setting actions require non null arguments.");
     }
@@ -65,8 +79,8 @@ public class ActionSet{
      */
     public void setSkill(Action newAction) throws NullActionArgumentException {
         if(newAction != null) {
-            Action old = this.skill; // reassign pointer of old action
-            this.skill = newAction.clone();
+            this.skill = newAction; // definitions are shared
+            this.timers[SKILL] = newAction.cooldown(); // a new action starts cooling down
         }else
             throw new NullActionArgumentException("Setting actions require non null arguments.");
     }
@@ -77,9 +91,29 @@ public class ActionSet{
      */
     public void setCritical(Action newAction) throws NullActionArgumentException {
         if(newAction != null) {
-            Action old = this.critical; // reassign pointer of old action
-            this.critical = newAction.clone();
+            this.critical = newAction; // definitions are shared
+            this.timers[CRITICAL] = newAction.cooldown(); // a new action starts cooling down
         }else
             throw new NullActionArgumentException("Setting actions require non null arguments.");
     }
-}
\ No newline at end of file
+    /**
+     * sets the cooldown timer of an action. used by battles to hand back the cooldowns still running
+     * when they end so that they carry over to the next battle.
+     * @param kind BASIC, SKILL or CRITICAL.
+     * @param turns the turns left before the action is ready. 0 when it is ready.
+     */
+    public void setTimer(int kind, int turns){
+        this.timers[kind] = Math.max(0, turns);
+    }
+    /**
+     * removes all the actions of the set. used to recycle a unit.
+     */
+    public void clear(){
+        this.basic = null;
+        this.skill = null;
+        this.critical = null;
+        this.timers[BASIC] = 0;
+        this.timers[SKILL] = 0;
+        this.timers[CRITICAL] = 0;
+    }
+}
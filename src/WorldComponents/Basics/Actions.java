@@ -6,8 +6,10 @@ import WorldComponents.Basics.Elements.*;
  * actions represents possible actions that hostiles and explorers can do in battle. this includes
  * any skill that they will use during their turn in the battle system. actions will be based on
  * the Action object that will provide characteristics of all actions: a name, an elemental
- * attribute, a category, a target, a damage multiplier, an accuracy factor, a cooldown timer,
- * a duration and a description. categories and targets will be defined as enums.
+ * attribute, a category, a target, a damage multiplier, an accuracy factor, a cooldown, a duration
+ * and a description. categories and targets will be defined as enums. actions are immutable
+ * definitions shared by every unit that knows them: the cooldown timers are kept by each unit's
+ * ActionSet.
  */
 public class Actions{
 
@@ -30,9 +32,8 @@ public class Actions{
     }
 
     /** Action object:
-     * base action object that provides action to units in a battle. most attributes can never be
-     * modified but the cooldown timer can. it is designed to be inherited by the definitive
-     * action classes that follow.
+     * base action object that provides action to units in a battle. its attributes can never be
+     * modified. it is designed to be inherited by the definitive action classes that follow.
      */
     public static abstract class Action{
         // final attributes
@@ -43,14 +44,14 @@ public class Actions{
         protected final float multiplier;
         protected final int accuracy;
         protected final int cooldown;
-        protected int timer; // track cooldown
         protected final int duration;
         protected final String description;
 
         /** constructor:
          * expects a name, an elemental attribute, a category, a target a damage multiplier, an
          * accuracy factor, a cooldown value, a duration value and a description. the elemental
-         * attribute can be set to "null" as not all actions will need and elemental attribute.
+         * attribute can be set to "null" as not all actions will need and elemental attribute; it is
+         * then stored as the None element.
          * @param description a text description of the action.
          * @param name the name of the action.
          * @param acc the accuracy value of the action.
@@ -65,13 +66,12 @@ public class Actions{
                       int acc, int coold, int dur, String description)
         {
             this.name = name;
-            this.attribute = attr;
+            this.attribute = attr == null ? Elements.of(Elements.NONE) : attr;
             this.catg = catg;
             this.target = tgt;
             this.multiplier = multx;
             this.accuracy = acc;
             this.cooldown = coold;
-            this.timer = this.cooldown; // because it tracks the cooldown
             this.duration = dur;
             this.description = description;
         }
@@ -119,17 +119,6 @@ public class Actions{
         public int cooldown(){
             return this.cooldown;
         }
-        /**
-         * @return the cooldown timer value
-         */
-        public int timer(){
-            return this.timer;
-        }
-
-        /**
-         * @return true if the cooldown timer is 0 and false if it is not.
-         */
-        public boolean isReady(){ return this.timer == 0; }
         /**
          * @return the duration
          */
@@ -142,30 +131,6 @@ public class Actions{
         public String describe(){
             return this.description;
         }
-
-        // setters
-        /**
-         * reduce the value of the cooldown timer by a unit if not "0" and check if it is "0".
-         * @return true if this.timer == 0
-         */
-        public boolean cool(){
-            if(this.timer > 0) // the move wasn't previously ready
-                this.timer--; // we count down
-            return this.timer == 0; // we check if it is ready now
-        }
-        /**
-         * resets the cooldown timer of an action that was used.
-         */
-        public void freeze(){
-            this.timer = this.cooldown;
-        }
-
-        // other methods
-        /**
-         * returns a copy of itself. this method has to be overwritten by
-         * the derived classes of Action.
-         */
-        public abstract Action clone();
     }
 
     /** Agress object:
@@ -193,15 +158,6 @@ public class Actions{
             // build the underlying Action
             super(name, attr, catg, tgt, multx, acc, coold, dur, description);
         }
-
-        // other methods
-        /**
-         * returns a copy of itself. this is a required override of the base abstract method.
-         */
-        public Agress clone(){
-            return new Agress(this.name, this.attribute, this.catg, this.target, this.multiplier,
-                    this.accuracy, this.cooldown, this.duration, this.description);
-        }
     }
 
     /** Buff object:
@@ -244,16 +200,6 @@ public class Actions{
         public String[] toBuff(){
             return this.stats_to_buff;
         }
-
-        // other methods
-        /**
-         * returns a copy of itself. this is a required override of the base abstract method.
-         */
-        public Buff clone(){
-            return new Buff(this.name, this.attribute, this.catg, this.target, this.multiplier,
-                    this.accuracy, this.cooldown, this.duration, this.stats_to_buff,
-                    this.description);
-        }
     }
 
     /**Nerf object:
@@ -297,16 +243,5 @@ public class Actions{
         public String[] toNerf(){
             return this.stats_to_nerf;
         }
-
-        // other methods
-        /**
-         * returns a copy of itself. this is a required override of the
-         * base abstract method.
-         */
-        public Nerf clone(){
-            return new Nerf(this.name, this.attribute, this.catg, this.target, this.multiplier,
-                    this.accuracy, this.cooldown, this.duration, this.stats_to_nerf,
-                    this.description);
-        }
     }
 }
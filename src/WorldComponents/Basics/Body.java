@@ -7,16 +7,20 @@ import WorldComponents.Basics.Collectibles.*;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
-import java.util.Hashtable;
+import java.util.EnumMap;
 
 /** Body class
  * this class represents an adventurer body with the 4 parts they can equip gear like weapons and
  * armor on. Each part is uniquely determined by a Defines.BodySlot key and it holds a
  * Collectibles.Gear objects as value. a Body is instantiated empty but can be set up anytime.
+ * the body also keeps the sum of the stats of the gear it wears. the sum is updated whenever a gear is
+ * put on or taken off so reading the bonus of a stat never has to go through the equipped gear.
  */
 public class Body{
     // attributes
-    protected Hashtable<BodySlot, Gear> slots;
+    protected EnumMap<BodySlot, Gear> slots; // unlike Hashtable, EnumMap accepts null values
+    private final int[] bonus; // sum of the stats of the equipped gear, by StatId ordinal
+    private final int[] delta = new int[Defines.STATS.length]; // scratch space for one gear's stats
 
     /** constructor
      * initialises the body with nothing on it; represented by null values. empty slot on the body
@@ -25,11 +29,12 @@ public class Body{
      */
     public Body(){
         // create the slots table
-        this.slots = new Hashtable<BodySlot, Gear>();
+        this.slots = new EnumMap<BodySlot, Gear>(BodySlot.class);
         this.slots.put(BodySlot.LHAND, null); // left hand
         this.slots.put(BodySlot.RHAND, null); // right hand
         this.slots.put(BodySlot.ARMOR, null); // body protection armor
         this.slots.put(BodySlot.WEARABLE, null); // accessory
+        this.bonus = new int[Defines.STATS.length];
     }
     /** copy constructor:
      * makes a new Body object with the same equipment as the model.
@@ -37,11 +42,12 @@ public class Body{
      * @throws UndefinedKeyException only of the original Body was flawed.
      */
     public Body(Body model) throws UndefinedKeyException {
-       this.slots = new Hashtable<BodySlot, Gear>();
+       this.slots = new EnumMap<BodySlot, Gear>(BodySlot.class);
        this.slots.put(BodySlot.LHAND, model.wearsAt(BodySlot.LHAND));
        this.slots.put(BodySlot.RHAND, model.wearsAt(BodySlot.RHAND));
        this.slots.put(BodySlot.ARMOR, model.wearsAt(BodySlot.ARMOR));
        this.slots.put(BodySlot.WEARABLE, model.wearsAt(BodySlot.WEARABLE));
+       this.bonus = model.bonus.clone();
     }
 
     // getters
@@ -72,7 +78,40 @@ public class Body{
         return (this.wearsAt(slot) == null);
     }
 
+    /**
+     * @param stat the id of a stat.
+     * @return the sum of that stat over the equipped gear.
+     */
+    public int bonus(StatId stat){
+        return this.bonus[stat.ordinal()];
+    }
+    /**
+     * copies the sum of each stat over the equipped gear into "dst" starting at "offset". nothing is
+     * allocated.
+     * @param dst the array to copy to. must hold Defines.STATS.length values after offset.
+     * @param offset where to start writing.
+     */
+    public void readBonus(int[] dst, int offset){
+        System.arraycopy(this.bonus, 0, dst, offset, this.bonus.length);
+    }
+
     // setters
+    /**
+     * replaces the gear of a slot and updates the stat bonus by the difference between the two gears.
+     * @return the gear that was on the slot or null.
+     */
+    private Gear set(BodySlot slot, Gear gear){
+        Gear old = this.slots.put(slot, gear);
+        if(old != null){
+            old.stats().readMaxes(this.delta, 0);
+            for(int i = 0; i < this.bonus.length; i++){ this.bonus[i] -= this.delta[i]; }
+        }
+        if(gear != null){
+            gear.stats().readMaxes(this.delta, 0);
+            for(int i = 0; i < this.bonus.length; i++){ this.bonus[i] += this.delta[i]; }
+        }
+        return old;
+    }
     /**
      * takes off the gear that is currently equipped on the specified slot. does nothing if the slot
      * is empty a.k.a the current gear is null.
@@ -80,13 +119,21 @@ public class Body{
      * @return the object that was in that slot or null if it was empty.
      */
     public Gear takeOff(@NotNull BodySlot slot) throws UndefinedKeyException{
-        if(this.slots.contains(slot)){ // slot argument is valid
-            Gear old = this.slots.get(slot); // either get gear or null
-            this.slots.replace(slot, old, null); // empty the slot
-            return old;
+        if(this.slots.containsKey(slot)){ // slot argument is valid
+            return this.set(slot, null); // either get gear or null and empty the slot
         }else
             throw new UndefinedKeyException(slot + " is not a valid key!");
     }
+    /**
+     * puts a gear directly on a slot, replacing what was there, without checking the gear's requirements.
+     * this is meant for restoring a saved body; use putOn() otherwise.
+     * @param slot the slot to put the gear on.
+     * @param gear the gear or null to empty the slot.
+     * @return the gear that was on the slot or null.
+     */
+    public Gear wear(@NotNull BodySlot slot, Gear gear){
+        return this.set(slot, gear);
+    }
     /**
      * put on the specified gear. the gear's BodyReq attributes will be used to determine where the
      * specified gear must go. this will also take off anything on the body that coincides with the
@@ -110,10 +157,10 @@ public class Body{
             switch (newGear.reqs()){
                 case ONE_HAND:
                     if(this.slotIsEmpty(BodySlot.RHAND)){ // RHAND is free so we equip there
-                        this.slots.replace(BodySlot.RHAND, null, newGear);
+                        this.set(BodySlot.RHAND, newGear);
                     }else{ //RHAND was not free so we equip at LHAND instead
                         removed[0] = takeOff(BodySlot.LHAND); // unequips what was at LHAND
-                        this.slots.replace(BodySlot.LHAND, null, newGear);
+                        this.set(BodySlot.LHAND, newGear);
                     }
                     break;
                 case TWO_HAND:
@@ -121,15 +168,15 @@ public class Body{
                     removed[0] = this.takeOff(BodySlot.RHAND);
                     removed[1] = this.takeOff(BodySlot.LHAND);
                     // then equip in the RHAND
-                    this.slots.replace(BodySlot.RHAND, null, newGear);
+                    this.set(BodySlot.RHAND, newGear);
                     break;
                 case BODY: // the body armor
                     removed[0] = this.takeOff(BodySlot.ARMOR); // remove old armor
-                    this.slots.replace(BodySlot.ARMOR, null, newGear);
+                    this.set(BodySlot.ARMOR, newGear);
                     break;
                 default: // the accessory
                     removed[0] = this.takeOff(BodySlot.WEARABLE); // remove old armor
-                    this.slots.replace(BodySlot.WEARABLE, null, newGear);
+                    this.set(BodySlot.WEARABLE, newGear);
                     break;
             }
             return removed; // return the list of removed gear
@@ -11,6 +11,31 @@ public class Defines {
         "HP", "ATK", "DEF", "MAGI", "RES", "SPD", "LUCK"
     };
 
+    /** StatId enum:
+     * enum version of STATS. the ordinal of each value is the index of the stat in STATS and in every
+     * stats array so stats can be accessed without hashing their name.
+     */
+    public enum StatId{
+        HP, ATK, DEF, MAGI, RES, SPD, LUCK;
+
+        /**
+         * @param name one of the STATS strings.
+         * @return the matching StatId; null if name is not a stat.
+         */
+        public static StatId of(String name){
+            return switch (name){
+                case "HP" -> HP;
+                case "ATK" -> ATK;
+                case "DEF" -> DEF;
+                case "MAGI" -> MAGI;
+                case "RES" -> RES;
+                case "SPD" -> SPD;
+                case "LUCK" -> LUCK;
+                default -> null;
+            };
+        }
+    }
+
     /* JOBS */
     public static final  String[] JOBS = {
         "Fighter", "Caster", "Survivalist"
@@ -52,4 +77,13 @@ public class Defines {
     public enum BattleType{
         MONSTER, BOSS
     }
+
+    /* DUNGEON */
+    /** BlockType enum:
+     * the events a block of a floor can hold. every floor ends with a stairs block: BOSS_STAIRS on the last
+     * floor of a stratum and STAIRS everywhere else.
+     */
+    public enum BlockType{
+        EMPTY, DANGER, HAZARD, SCAVENGING, CHOICE, STAIRS, BOSS_STAIRS
+    }
 }
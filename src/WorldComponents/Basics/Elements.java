@@ -6,6 +6,9 @@ package WorldComponents.Basics;
  * interactions between each other thus elemental attributes will also rule the interaction between
  * objects with elemental attributes. elements will be based on an base Element object. Element will
  * be built using an enum that identify each element by its name to make things convenient.
+ * objects without an elemental attribute use the None element. elements hold no state so each of them
+ * exists only once: use Elements.of() to get them. their interactions are computed once into the
+ * AFFINITY table that damage computations can index directly.
  */
 public class Elements {
 
@@ -14,6 +17,60 @@ public class Elements {
     public static final int EARTH = 1;
     public static final int WATER = 2;
     public static final int FIRE = 3;
+    public static final int NONE = 4;
+    public static final int COUNT = 5;
+    // damage multipliers
+    public static final float WEAK_MULTIPLIER = 1.5f;
+    public static final float RESISTED_MULTIPLIER = .5f;
+
+    // the single instance of each element, indexed by id
+    private static final Element[] ELEMENTS = {new Air(), new Earth(), new Water(), new Fire(), new None()};
+    // AFFINITY[attack * COUNT + defense] is the damage multiplier of an attack of the "attack" element
+    // on a target of the "defense" element.
+    public static final float[] AFFINITY = new float[COUNT * COUNT];
+    // WEAK_TO[a * COUNT + b] and EFFECTIVE_ON[a * COUNT + b] answer Element.weakTo() and effectiveOn()
+    private static final boolean[] WEAK_TO = new boolean[COUNT * COUNT];
+    private static final boolean[] EFFECTIVE_ON = new boolean[COUNT * COUNT];
+
+    static {
+        for(int a = 0; a < COUNT; a++){
+            for(int b = 0; b < COUNT; b++){
+                if(a != NONE && b != NONE){ // the None element doesn't interact with the others
+                    WEAK_TO[a * COUNT + b] = (a == b) || (ELEMENTS[a].weakness() == b);
+                    EFFECTIVE_ON[a * COUNT + b] = ELEMENTS[a].effectiveness() == b;
+                }
+            }
+        }
+        for(int attack = 0; attack < COUNT; attack++){
+            for(int defense = 0; defense < COUNT; defense++){
+                float multiplier = 1f;
+                if(WEAK_TO[defense * COUNT + attack])
+                    multiplier = WEAK_MULTIPLIER;
+                else if(EFFECTIVE_ON[defense * COUNT + attack])
+                    multiplier = RESISTED_MULTIPLIER;
+                AFFINITY[attack * COUNT + defense] = multiplier;
+            }
+        }
+    }
+
+    /**
+     * @param id one of the elements constants. the -1 used by data files for "no element" is accepted too.
+     * @return the shared instance of the element.
+     * @throws ArrayIndexOutOfBoundsException if id isn't a valid element.
+     */
+    public static Element of(int id){
+        return ELEMENTS[id == -1 ? NONE : id];
+    }
+    /**
+     * @param attack the element of the attack. null is treated as None.
+     * @param defense the element of the target. null is treated as None.
+     * @return the damage multiplier of the attack on the target.
+     */
+    public static float affinity(Element attack, Element defense){
+        int a = attack == null ? NONE : attack.elementalID;
+        int d = defense == null ? NONE : defense.elementalID;
+        return AFFINITY[a * COUNT + d];
+    }
 
     /** Element object:
      * this object will be the base that all 4 elements inherit. this sets an elemental id that will
@@ -21,6 +78,7 @@ public class Elements {
      * (1) each element is weak to itself;
      * (2) AIR > EARTH > WATER > FIRE > AIR;
      * (3) AIR < FIRE < WATER < EARTH < AIR.
+     * the None element is neither weak nor effective on anything.
      */
     public static abstract class Element{
         // attributes
@@ -33,7 +91,7 @@ public class Elements {
          * @param name
          * @param id
          */
-        public Element(String name, int id){
+        private Element(String name, int id){
             this.name = name;
             this.elementalID = id;
         }
@@ -55,6 +113,8 @@ public class Elements {
          * return elementalID of element weak to
          */
         public int weakness(){
+            if(this.elementalID == NONE) // weak to nothing
+                return NONE;
             if(this.elementalID == AIR) // if its AIR a.k.a 0
                 return FIRE; // wrap around and print 3 a.k.a FIRE
             else
@@ -65,6 +125,8 @@ public class Elements {
          * return elementalID of element effective on
          */
         public int effectiveness(){
+            if(this.elementalID == NONE) // effective on nothing
+                return NONE;
             if(this.elementalID == FIRE) // if its FIRE a.k.a 3
                 return AIR; // wrap around and print 0 a.k.a AIR
             else
@@ -81,8 +143,7 @@ public class Elements {
          * @return a boolean
          */
         public boolean weakTo(Element other){
-            return (this.elementalID == other.elementalID) ||
-                    (this.weakness() == other.elementalID);
+            return WEAK_TO[this.elementalID * COUNT + other.elementalID];
         }
         /**
          * returns a boolean that is true if
@@ -91,7 +152,7 @@ public class Elements {
          * @return a boolean
          */
         public boolean effectiveOn(Element other){
-            return (this.effectiveness() == other.elementalID);
+            return EFFECTIVE_ON[this.elementalID * COUNT + other.elementalID];
         }
     }
 
@@ -100,9 +161,9 @@ public class Elements {
      */
     public static class Air extends Element{
         /** constructor:
-         * expects no parameters.
+         * expects no parameters. use Elements.of(AIR) to get the instance.
          */
-        public Air(){
+        private Air(){
             super("Air", AIR);
         }
     }
@@ -112,9 +173,9 @@ public class Elements {
      */
     public static class Earth extends Element{
         /** constructor:
-         * expects no parameters.
+         * expects no parameters. use Elements.of(EARTH) to get the instance.
          */
-        public Earth(){
+        private Earth(){
             super("Earth", EARTH);
         }
     }
@@ -124,9 +185,9 @@ public class Elements {
      */
     public static class Water extends Element{
         /** constructor:
-         * expects no parameters.
+         * expects no parameters. use Elements.of(WATER) to get the instance.
          */
-        public Water(){
+        private Water(){
             super("Water", WATER);
         }
     }
@@ -136,10 +197,22 @@ public class Elements {
      */
     public static class Fire extends Element{
         /** constructor:
-         * expects no parameters.
+         * expects no parameters. use Elements.of(FIRE) to get the instance.
          */
-        public Fire(){
+        private Fire(){
             super("Fire", FIRE);
         }
     }
+
+    /** None object:
+     * object that represents the lack of elemental attribute. it has no interaction with the other elements.
+     */
+    public static class None extends Element{
+        /** constructor:
+         * expects no parameters. use Elements.of(NONE) to get the instance.
+         */
+        private None(){
+            super("None", NONE);
+        }
+    }
 }
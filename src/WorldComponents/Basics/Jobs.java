@@ -3,9 +3,10 @@ package WorldComponents.Basics;
 import java.util.Hashtable;
 
 import Customs.Exceptions.NegativeValueArgumentException;
+import Customs.Exceptions.UndefinedKeyException;
 import WorldComponents.Basics.Leveling.Rank;
 import WorldComponents.Basics.Actions.*;
-import Customs.Utilities.JsonIO;
+import Customs.Utilities.ContentRegistry;
 
 /** Jobs package:
  * jobs are vocations that adventurers can pursue. following such vocation means developing their body
@@ -112,6 +113,21 @@ public class Jobs {
         }
     }
 
+    /**
+     * creates a job from its name, as returned by Job.name().
+     * @param name the name of the job.
+     * @return a new Job object at rank 1.
+     * @throws UndefinedKeyException if no job has that name.
+     */
+    public static Job byName(String name) throws Exception {
+        switch(name){
+            case "Fighter":
+                return new Fighter();
+            default:
+                throw new UndefinedKeyException(name + " is not a known job.");
+        }
+    }
+
     /** Fighter object:
      * this job represents units focus on developing their muscles resulting on better physical stats (ATK, DEF).
      * their learnset includes hyper physical buffing and damaging techniques that boost their performances in
@@ -131,12 +147,13 @@ public class Jobs {
                 new float[]{/*HP*/.2f, /*ATK*/.2f, /*DEF*/.2f, /*MAGI*/.1f, /*RES*/.1f, /*SPD*/.1f, /*LUCK*/.1f}
             );
             // fill in the actions one by one to build the custom class learnable set.
-            this.learnable.put(1, JsonIO.loadAction("fight"));  // basic
-            this.learnable.put(3, JsonIO.loadAction("warcry"));
-            this.learnable.put(5, JsonIO.loadAction("cleave"));
-            this.learnable.put(8, JsonIO.loadAction("cure"));
-            this.learnable.put(10, JsonIO.loadAction("bash"));
-            this.learnable.put(13, JsonIO.loadAction("burningblade"));
+            ContentRegistry content = ContentRegistry.shared();
+            this.learnable.put(1, content.action("fight"));  // basic
+            this.learnable.put(3, content.action("warcry"));
+            this.learnable.put(5, content.action("cleave"));
+            this.learnable.put(8, content.action("cure"));
+            this.learnable.put(10, content.action("bash"));
+            this.learnable.put(13, content.action("burningblade"));
         }
     }
 
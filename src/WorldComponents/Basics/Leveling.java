@@ -49,6 +49,15 @@ public class Leveling {
         }
 
         // setters
+        /**
+         * sets the level and its progression back to saved values. no level up is reported.
+         * @param level the saved level.
+         * @param progression the saved progression.
+         */
+        public void restore(int level, int progression){
+            this.level = level;
+            this.progression = progression;
+        }
         /**
          * adds "amount" of progression points to the current "progression". update level if needed and
          * return a true if there was a level up.
@@ -61,7 +70,7 @@ public class Leveling {
             }
             // else
             this.progression += amount; // update progression
-            int newLevel = (this.progression % 100 + 1);
+            int newLevel = (this.progression / 100 + 1);
             boolean levelUp = newLevel > this.level;
             if (levelUp){
                 this.level = newLevel;
@@ -147,6 +156,16 @@ public class Leveling {
         }
 
         // setters
+        /**
+         * same as the super version of the method but also updates the letter rank.
+         * @param level the saved level.
+         * @param progression the saved progression.
+         */
+        @Override
+        public void restore(int level, int progression){
+            super.restore(level, progression);
+            this.rankID = level / 5;
+        }
         /**
          * should be called every time a new floor was completely completed, giving the adventurer a 100
          * explorer rank points. earning is completed by calling super method (discarding return value).
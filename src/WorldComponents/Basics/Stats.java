@@ -4,6 +4,7 @@ import java.util.Hashtable;
 
 import Customs.Exceptions.NegativeValueArgumentException;
 import Customs.Exceptions.WrongSizeStatsArrayException;
+import WorldComponents.Basics.Defines.StatId;
 
 /** Stats package:
  * this package contains the definition of a stat. making this its own class allows the manipulation
@@ -16,22 +17,31 @@ public class Stats {
     /** Stat object:
      * object that represent a single stat of a unit. this allows each stat to be its own entity
      * thus enabling easy modification of its attributes. a stat is a combination of a current
-     * value (referenced by "cur") and a maximum value (referenced by "max") recorded in a
-     * Hashtable. This allow quick get() operations to retrieve the values.
+     * value (referenced by "cur") and a maximum value (referenced by "max"). the values are not
+     * stored by the Stat itself but in the arrays of its StatSet so a Stat is a view on one index
+     * of those arrays. a standalone Stat gets arrays of its own.
      */
     public static class Stat{
 
         // attributes
-        private int current;
-        private int max;
+        private final int[] current;
+        private final int[] max;
+        private final int index;
 
         /** constructor:
          * expects an initial value to set the stat at.
          * @param initial the initial value of a stat
          */
         public Stat(int initial){
-            this.max = initial;
-            this.current = initial;
+            this(new int[]{initial}, new int[]{initial}, 0);
+        }
+        /** constructor:
+         * builds a view on the "index" values of the passed arrays.
+         */
+        private Stat(int[] current, int[] max, int index){
+            this.current = current;
+            this.max = max;
+            this.index = index;
         }
 
         // getter
@@ -39,13 +49,13 @@ public class Stats {
          * return current value of stat.
          */
         public int current(){
-            return this.current;
+            return this.current[this.index];
         }
         /**
          * return max value of stat.
          */
         public int max(){
-            return this.max;
+            return this.max[this.index];
         }
 
         // setters
@@ -56,7 +66,7 @@ public class Stats {
          */
         public void develop(int amount) throws NegativeValueArgumentException {
             if(!(amount < 0))
-                this.max += amount;
+                this.max[this.index] += amount;
             else
                 throw new NegativeValueArgumentException(amount + " can't be negative.");
         }
@@ -67,10 +77,10 @@ public class Stats {
          */
         public void lowerBy(int amount) throws NegativeValueArgumentException {
             if(amount > 0){
-                if(this.current > amount)
-                    this.current -= amount;
+                if(this.current[this.index] > amount)
+                    this.current[this.index] -= amount;
                 else // to avoid negative current values
-                    this.current = 0;
+                    this.current[this.index] = 0;
             }else
                 throw new NegativeValueArgumentException(amount + " can't be negative.");
         }
@@ -81,7 +91,7 @@ public class Stats {
         public void raiseBy(int amount) throws NegativeValueArgumentException {
             if(amount > 0){
                 // the current can go over the max
-                this.current += amount;
+                this.current[this.index] += amount;
             }else
                 throw new NegativeValueArgumentException(amount + " can't be negative.");
         }
@@ -90,21 +100,25 @@ public class Stats {
          * current equal to the max.
          */
         public void reset(){
-            this.current = this.max;
+            this.current[this.index] = this.max[this.index];
         }
     }
 
     /**
      * this class represent the complete set of stats that any unit of the game world and equipment
-     * pieces must possess to be able to interact to have battle characteristics. It uses the "Stat"
-     * object defined earlier as its value in the internal HashTable<Stats, Stat>. the complete stat
+     * pieces must possess to be able to interact to have battle characteristics. the complete stat
      * set contains the 7 stat characteristics that this rpg-like features: HP, ATK, DEF, MAGI, RES,
-     * SPD and LUCK. these are defined as elements of a String[] in WordComponents.Basics.Defines.STATS.
+     * SPD and LUCK. these are defined as elements of a String[] in WordComponents.Basics.Defines.STATS
+     * and as the Defines.StatId enum. the current and max values are packed in two int arrays indexed
+     * by StatId ordinal; hot code should use the StatId accessors. the String based getStat() is kept
+     * for compatibility and returns a Stat view on the arrays.
      */
     public static class StatSet{
 
         // attributes
-        private Hashtable<String, Stat> set;
+        private final int[] current;
+        private final int[] max;
+        private final Stat[] views; // one view per stat, built once
 
         /** constructor:
          * requires an int array with initial values for all stats defined in Defines.STATS
@@ -112,65 +126,131 @@ public class Stats {
          * @throws WrongSizeStatsArrayException when initValues < Defines.STATS.length
          */
         public StatSet(int[] initValues) throws WrongSizeStatsArrayException{
-            this.set = new Hashtable<String, Stat>(); // construct the set
-            // create the stats set while making sure the "initValues" is
-            // the right size
-            try{
-                for(int i = 0; i < Defines.STATS.length; i++){
-                    this.set.put(Defines.STATS[i], new Stat(initValues[i]));
-                }
-            }catch (ArrayIndexOutOfBoundsException err){
+            if(initValues.length < Defines.STATS.length){
                 throw new WrongSizeStatsArrayException(
-                        "passed initial stats array should be " + Defines.STATS.length + " long.", err);
+                        "passed initial stats array should be " + Defines.STATS.length + " long.", null);
+            }
+            this.max = new int[Defines.STATS.length];
+            System.arraycopy(initValues, 0, this.max, 0, this.max.length);
+            this.current = this.max.clone();
+            this.views = new Stat[this.max.length];
+            for(int i = 0; i < this.views.length; i++){
+                this.views[i] = new Stat(this.current, this.max, i);
             }
         }
 
         // getters
         /**
-         * returns the set of stats of the StatSet object.
+         * returns the set of stats of the StatSet object. the table is built on each call: prefer
+         * getStat() or the StatId accessors.
          */
         public Hashtable<String, Stat> getSet(){
-            return this.set;
+            Hashtable<String, Stat> set = new Hashtable<String, Stat>();
+            for(int i = 0; i < Defines.STATS.length; i++){
+                set.put(Defines.STATS[i], this.views[i]);
+            }
+            return set;
         }
         /**
          * @return an int[] with the current values of the Statset.
          */
         public int[] getSetCurrents(){
-            int[] statsArray = new int[Defines.STATS.length];
-            int i = 0;
-            for(String stat : Defines.STATS){
-                statsArray[i] = this.getStat(stat).current;
-            }
-            return statsArray;
+            return this.current.clone();
         }
         /**
          * @return an int[] with the max values of the Statset.
          */
         public int[] getSetMaxes(){
-            int[] statsArray = new int[Defines.STATS.length];
-            int i = 0;
-            for(String stat : Defines.STATS){
-                statsArray[i] = this.getStat(stat).current;
-            }
-            return statsArray;
+            return this.max.clone();
         }
         /**
          * returns the Stat specified by stat.
          * @param stat the string key of the stat sought.
          */
         public Stat getStat(String stat){
-            return this.set.get(stat);
+            StatId id = StatId.of(stat);
+            return id == null ? null : this.views[id.ordinal()];
+        }
+        /**
+         * returns the Stat specified by stat.
+         * @param stat the id of the stat sought.
+         */
+        public Stat getStat(StatId stat){
+            return this.views[stat.ordinal()];
+        }
+        /**
+         * @param stat the id of the stat.
+         * @return the current value of the stat.
+         */
+        public int current(StatId stat){
+            return this.current[stat.ordinal()];
+        }
+        /**
+         * @param stat the id of the stat.
+         * @return the max value of the stat.
+         */
+        public int max(StatId stat){
+            return this.max[stat.ordinal()];
+        }
+
+        /**
+         * copies the current values of the set into "dst" starting at "offset". nothing is allocated.
+         * @param dst the array to copy to. must hold Defines.STATS.length values after offset.
+         * @param offset where to start writing.
+         */
+        public void readCurrents(int[] dst, int offset){
+            System.arraycopy(this.current, 0, dst, offset, this.current.length);
+        }
+        /**
+         * copies the max values of the set into "dst" starting at "offset". nothing is allocated.
+         * @param dst the array to copy to. must hold Defines.STATS.length values after offset.
+         * @param offset where to start writing.
+         */
+        public void readMaxes(int[] dst, int offset){
+            System.arraycopy(this.max, 0, dst, offset, this.max.length);
         }
 
         // setters
+        /**
+         * overwrites the current values of the set with the values of "src" starting at "offset". this is
+         * used to apply the results of a battle computed outside of the set.
+         * @param src the array to copy from. must hold Defines.STATS.length values after offset.
+         * @param offset where to start reading.
+         */
+        public void writeCurrents(int[] src, int offset){
+            System.arraycopy(src, offset, this.current, 0, this.current.length);
+        }
+        /**
+         * reduce the current value of a stat by "amount", without going under 0. "amount" cannot be negative.
+         * @param stat the id of the stat.
+         * @param amount the amount to lower by.
+         */
+        public void lowerBy(StatId stat, int amount) throws NegativeValueArgumentException {
+            this.views[stat.ordinal()].lowerBy(amount);
+        }
+        /**
+         * raise the current value of a stat by "amount". "amount" must be positive.
+         * @param stat the id of the stat.
+         * @param amount the amount to raise by.
+         */
+        public void raiseBy(StatId stat, int amount) throws NegativeValueArgumentException {
+            this.views[stat.ordinal()].raiseBy(amount);
+        }
         /**
          * reset all the stats of the set to their max value. this can be useful for example when
          * healing the user at an inn.
          */
         public void resetAll(){
-            for(String stat : Defines.STATS){
-                this.getStat(stat).reset();
-            }
+            System.arraycopy(this.max, 0, this.current, 0, this.current.length);
+        }
+        /**
+         * puts the whole set back to initial values: max values are overwritten, which undoes any
+         * develop(), and current values are set to the new max. nothing is allocated.
+         * @param initValues initial values of each stat. must hold Defines.STATS.length values.
+         */
+        public void restore(int[] initValues){
+            System.arraycopy(initValues, 0, this.max, 0, this.max.length);
+            System.arraycopy(this.max, 0, this.current, 0, this.current.length);
         }
         /**
          * reset all the stats of the set but the "HP" to their max value. This can be used at the
@@ -178,9 +258,10 @@ public class Stats {
          * next fight.json.
          */
         public void cleanseAll(){
-            for(String stat : Defines.STATS){
-                if (!stat.equals("HP")) // skip the "HP" reset
-                    this.getStat(stat).reset();
+            int hp = StatId.HP.ordinal(); // skip the "HP" reset
+            for(int i = 0; i < this.current.length; i++){
+                if(i != hp)
+                    this.current[i] = this.max[i];
             }
         }
     }
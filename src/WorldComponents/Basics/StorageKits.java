@@ -1,6 +1,6 @@
 package WorldComponents.Basics;
 
-import java.util.Arrays;
+import java.util.HashMap;
 
 import Customs.Exceptions.NegativeValueArgumentException;
 import WorldComponents.Basics.Collectibles.Item;
@@ -13,35 +13,48 @@ public class StorageKits {
 
     /** Bag object:
      * a bag is the item and explorer has on them and that allows them to store the items they find
-     * during their adventure. a bag is made of slots that can each contains exactly one item. its
-     * maximum capacity is BAG_SIZE items. the bag object is autonomous meaning it is able to self
-     * manage its contents and provide specific data on its characteristics. since the bags contents
-     * is an array, there will be lots of shuffling operations involved with managing the bag so to
-     * help we add a inStock attribute that stores how many items are currently contained.
+     * during their adventure. its maximum capacity is BAG_SIZE items. the bag object is autonomous meaning
+     * it is able to self manage its contents and provide specific data on its characteristics. items of
+     * the same name are stacked: the bag keeps one stack per name, made of the item and how many of it
+     * are stored, and a hash index from names to stacks. storing, searching and taking out items thus take
+     * constant time: taking out the last item of a stack moves the last stack in its place instead of
+     * shifting the following ones. the inStock attribute stores how many items are currently contained.
      */
-
     public static class Bag{
        // attributes
        public static final int BAG_SIZE = 50;
-       private Item[] contents;
+       private final Item[] items; // item of each stack
+       private final int[] counts; // size of each stack
+       private final HashMap<String, Integer> index; // item name to stack
+       private int stacks; // number of stacks
        private int inStock;
 
         /** constructor:
-         * by default a bag is empty so no argument is expected. the list is built but nothing is
-         * added to it. each slot will be initialized to null to show they're empty.
+         * by default a bag is empty so no argument is expected. there can't be more stacks than items so
+         * the stacks are allocated for BAG_SIZE items once.
          */
         public Bag(){
-            this.contents = new Item[BAG_SIZE];
-            Arrays.fill(this.contents, null); // empty bag
+            this.items = new Item[BAG_SIZE];
+            this.counts = new int[BAG_SIZE];
+            this.index = new HashMap<String, Integer>(BAG_SIZE * 2);
+            this.stacks = 0;
             this.inStock = 0; // no item stored
         }
 
         // getters
         /**
-         * get the contents array of the bag.
+         * get the contents of the bag as one item per slot, the items of a stack next to each other and
+         * empty slots set to null. the array is built on each call: prefer item() and count().
          */
         public Item[] contents(){
-            return this.contents;
+            Item[] contents = new Item[BAG_SIZE];
+            int slot = 0;
+            for(int i = 0; i < this.stacks; i++){
+                for(int j = 0; j < this.counts[i]; j++){
+                    contents[slot++] = this.items[i];
+                }
+            }
+            return contents;
         }
         /**
          * get the number of items in stock.
@@ -49,6 +62,26 @@ public class StorageKits {
         public int stockSize(){
             return this.inStock;
         }
+        /**
+         * @return the number of stacks, that is of different items, in the bag.
+         */
+        public int stackCount(){
+            return this.stacks;
+        }
+        /**
+         * @param stack the index of a stack, from 0 to stackCount() - 1.
+         * @return the item of the stack.
+         */
+        public Item item(int stack){
+            return this.items[stack];
+        }
+        /**
+         * @param stack the index of a stack, from 0 to stackCount() - 1.
+         * @return how many of the stack's item the bag holds.
+         */
+        public int count(int stack){
+            return this.counts[stack];
+        }
         /**
          * @return true if inStock == BAG_SIZE. return false if that is not the case.
          */
@@ -59,79 +92,71 @@ public class StorageKits {
         // management
 
         /**
-         * searches the contents of the bag for an item of the same name as provided as argument. the
-         * search is case sensitive and stops at the first occurrence of such an item.
+         * looks up the stack of the items of the same name as provided as argument. the search is case
+         * sensitive.
          * @param itemName the name of the item to look for.
-         * @return the index of the item if it was found. a "-1" is returned if no occurrences were found.
+         * @return the index of the stack if it was found. a "-1" is returned if there is no such item.
          */
         public int nameSearch(String itemName){
-            int index = -1; // failure flag
-            if(this.inStock != 0){ // search occurs only if the bag contains something
-                index = 0; // init for search
-                boolean found = false; // search flag
-                while((index < this.inStock) && !found){ // search loop
-                    found = this.contents[index].name().equals(itemName);
-                    if(!found)
-                        index++; // check next item if not found
-                }
-            }
-            return index;
+            Integer stack = this.index.get(itemName);
+            return stack == null ? -1 : stack;
         }
         /**
-         * stores an item in the bag if there is space. the item is checked against each non empty slots.
-         * if any slot has an item of the same name, the new item is inserted right after it. but if no
-         * items of the same name are found, the item is inserted in the first available free slot.once
-         * storing is complete, the inStock attribute is updated and a true is returned.
+         * stores an item in the bag if there is space. if the bag has a stack of items of the same name,
+         * the item joins that stack; else it starts a new stack after the others. once storing is
+         * complete, the inStock attribute is updated and a true is returned.
          * @param item the Item object to store inside the bag.
          * @return true if storing was successful; false if it failed because the bag was full.
          */
         public boolean store(Item item){
-            if(this.isFull()){
-                return false; // bag is full so we can't add anything
+            return this.store(item, 1) == 1;
+        }
+        /**
+         * stores up to "count" copies of an item, as many as the space left allows.
+         * @param item the Item object to store inside the bag.
+         * @param count the number of copies to store.
+         * @return the number of copies stored.
+         */
+        public int store(Item item, int count){
+            count = Math.min(count, BAG_SIZE - this.inStock);
+            if(count <= 0){
+                return 0; // bag is full so we can't add anything
             }
-            // there is space
-            int i = 0;
-            boolean sameItem = false; // search flag
-            while(i < this.inStock && !sameItem){ // if inStock == 0 (empty bag) the search doesn't happen
-                if(this.contents[i] != null) { // precautionary test
-                    sameItem = this.contents[i].name().equals(item.name()); // compare names
-                    if(sameItem){ // item by the same name found
-                        // starting by the last non-empty slot we shuffle everything by one slot down
-                        for(int j = this.inStock - 1; j > i; j--){
-                            this.contents[j+1] = this.contents[j];
-                        }
-                        // then we store the item at the right place
-                        this.contents[i+1] = item;
-                        this.inStock++; // update number of items in bag
-                        item = null; // delete old reference to the object
-                    }
-                }
-                if(item != null) { // we didn't store it in the loop
-                    // so we store it at the first empty slot instead and update inStock
-                    this.contents[this.inStock++] = item;
-                }
+            int stack = this.nameSearch(item.name());
+            if(stack < 0){ // new stack
+                stack = this.stacks++;
+                this.items[stack] = item;
+                this.counts[stack] = 0;
+                this.index.put(item.name(), stack);
             }
-            return true; // return successful storing
+            this.counts[stack] += count;
+            this.inStock += count; // update number of items in bag
+            return count;
         }
 
         /**
-         * takes the item identified by its index out of the array. the array is shuffled around to
-         * fill the empty slot and the inStock attribute is reduced by one unit. of course if the bag
-         * is empty, nothing will be taken out.
-         * @param index the index of the item to take out in the this.contents.
-         * @return the item to be taken out. if the bag is empty, returns null.
-         */
-        public Item takeOut(int index){
-            if(this.inStock == 0){
+         * takes one item of the stack identified by its index out of the bag. a stack that becomes empty
+         * is replaced by the last stack so nothing has to be shifted and the inStock attribute is reduced
+         * by one unit. of course if the bag is empty, nothing will be taken out.
+         * @param stack the index of the stack to take an item from.
+         * @return the item to be taken out. if the bag is empty or there is no such stack, returns null.
+         */
+        public Item takeOut(int stack){
+            if(this.inStock == 0 || stack < 0 || stack >= this.stacks){
                 return null;
             }
-            // there are items in the bag
-            Item removed = this.contents[index]; // copy the reference
-            for(int i = index; i < this.inStock; i++){
-                this.contents[i] = this.contents[i+1]; // shuffle up
+            Item removed = this.items[stack];
+            if(--this.counts[stack] == 0){ // the stack is gone
+                this.index.remove(removed.name());
+                int last = --this.stacks;
+                if(stack != last){ // the last stack fills the hole
+                    this.items[stack] = this.items[last];
+                    this.counts[stack] = this.counts[last];
+                    this.index.put(this.items[stack].name(), stack);
+                }
+                this.items[last] = null; // delete last reference
             }
             this.inStock--; // update number of items
-            this.contents[this.inStock] = null; // delete last reference
             return removed;
         }
     }
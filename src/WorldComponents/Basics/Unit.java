@@ -2,6 +2,7 @@ package WorldComponents.Basics;
 
 import WorldComponents.Basics.Stats.*;
 import WorldComponents.Basics.Leveling.*;
+import WorldComponents.Basics.Defines.StatId;
 import Customs.Exceptions.WrongSizeStatsArrayException;
 
 /** Unit class
@@ -78,10 +79,10 @@ public class Unit{
      * after action that targets the unit.
      */
     public void healthCheck(){
-        int currentHP = this.stats.getStat("HP").current(); // get unit current HP
-        int maxHP = this.stats.getStat("HP").max(); // get unit max HP
+        int currentHP = this.stats.current(StatId.HP); // get unit current HP
+        int maxHP = this.stats.max(StatId.HP); // get unit max HP
         int criticalHP = maxHP / 4; // integer division
         isCritical = currentHP <= criticalHP;
-        isAlive = currentHP == 0;
+        isAlive = currentHP > 0;
     }
 }
@@ -1,7 +1,10 @@
 package WorldComponents.Mobs;
 
 import Customs.Exceptions.UndefinedKeyException;
+import WorldComponents.Basics.ActionSet;
 import WorldComponents.Basics.Body;
+import WorldComponents.Basics.Defines.StatId;
+import WorldComponents.Basics.Jobs;
 import WorldComponents.Basics.Jobs.Job;
 import WorldComponents.Basics.Jobs.Fighter;
 import WorldComponents.Basics.StorageKits.Bag;
@@ -19,6 +22,7 @@ import Customs.Exceptions.NullActionArgumentException;
  * achievements.
  */
 public class Explorer extends Unit{
+    private static final StatId[] STAT_IDS = StatId.values(); // values() clones on every call
     // attributes
     Body body;
     Job job;
@@ -47,6 +51,32 @@ public class Explorer extends Unit{
         // set basic action to match the job's
         this.setJobBasic();
     }
+    /** copy constructor:
+     * creates a fresh explorer with the same name, level, max stats, job, rank, actions and equipment as
+     * the model. the copy gets its own Job at the model's job rank, starts with full stats, cooled down
+     * actions, an empty bag and an empty wallet. this is useful to run many battles from the same explorer
+     * template.
+     * @param model the Explorer object to duplicate.
+     */
+    public Explorer(Explorer model) throws Exception {
+        super(model.name, model.level.current(), model.stats.getSetMaxes());
+        this.level.restore(model.level.current(), model.level.currentProg());
+        this.body = new Body(model.body);
+        this.job = Jobs.byName(model.job.name());
+        this.job.rank().restore(model.job.rank().current(), model.job.rank().currentProg());
+        this.bag = new Bag();
+        this.wallet = new Wallet();
+        this.rank = new ExplorerRank(0);
+        this.rank.restore(model.rank.current(), model.rank.currentProg());
+
+        // same actions as the model: they are immutable and shared
+        ActionSet actions = model.abilities();
+        this.abilities.setBasic(actions.basic());
+        if(actions.skill() != null)
+            this.abilities.setSkill(actions.skill());
+        if(actions.critical() != null)
+            this.abilities.setCritical(actions.critical());
+    }
 
     // getters
     /**
@@ -69,6 +99,26 @@ public class Explorer extends Unit{
      * @return the explorer's job.
      */
     public ExplorerRank rank(){ return this.rank; }
+    /**
+     * @param stat the id of a stat.
+     * @return the max value of the stat with the explorer's gear on.
+     */
+    public int effective(StatId stat){
+        return this.stats.max(stat) + this.body.bonus(stat);
+    }
+    /**
+     * copies the max value of each stat with the explorer's gear on into "dst" starting at "offset". the
+     * gear part comes from the body's running total so nothing is summed over the equipped gear and
+     * nothing is allocated.
+     * @param dst the array to copy to. must hold Defines.STATS.length values after offset.
+     * @param offset where to start writing.
+     */
+    public void readEffective(int[] dst, int offset){
+        this.body.readBonus(dst, offset);
+        for(StatId stat : STAT_IDS){
+            dst[offset + stat.ordinal()] += this.stats.max(stat);
+        }
+    }
 
     // setters
     /**
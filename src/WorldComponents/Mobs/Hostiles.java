@@ -2,12 +2,17 @@ package WorldComponents.Mobs;
 
 import java.util.Arrays;
 
+import WorldComponents.Basics.ActionSet;
+import WorldComponents.Basics.Actions.Action;
 import WorldComponents.Basics.Defines;
 import WorldComponents.Basics.Collectibles.Item;
+import WorldComponents.Basics.Elements;
 import WorldComponents.Basics.Elements.Element;
 import WorldComponents.Basics.Unit;
 import Customs.Exceptions.WrongSizeStatsArrayException;
 import Customs.Exceptions.NegativeValueArgumentException;
+import Customs.Exceptions.NullActionArgumentException;
+import Customs.Exceptions.UndefinedKeyException;
 
 /** Hostiles package:
  * this source contains the definition of all the hostile mobs of the dungeon. it is based on the
@@ -26,6 +31,9 @@ public class Hostiles {
         protected final String description;
         protected Item[] carried;
         protected int forms;
+        protected final int[] initStats; // stats to go back to when the monster is recycled
+        protected Action[] initActions; // BASIC, SKILL and CRITICAL actions of the species; entries can be null
+        protected Tactics tactics;
 
         /** constructor:
          * expects a name, a level value, a stats set, and a list of loot items.
@@ -39,13 +47,20 @@ public class Hostiles {
             Item[] loot) throws WrongSizeStatsArrayException
         {
             super(name, level, initStats); // build unit
-            this.attribute = attribute;
+            this.attribute = attribute == null ? Elements.of(Elements.NONE) : attribute;
             this.carried = loot; // deep copy the loot
             this.description = description;
             this.forms = 1; // monsters only have one form
+            this.initStats = initStats.clone();
+            this.initActions = new Action[3];
+            this.tactics = Tactics.DEFAULT;
         }
 
         // getters
+        /**
+         * @return the elemental attribute of the monster. None if it has no element.
+         */
+        public Element attribute(){ return this.attribute; }
         /**
          * returns the reference to the list of items the monster carries.
          * @return a WorldBasics.Collectibles.Item[3]
@@ -63,6 +78,184 @@ public class Hostiles {
         public int forms(){
             return this.forms;
         }
+        /**
+         * @return the tactics the monster picks its actions with.
+         */
+        public Tactics tactics(){ return this.tactics; }
+
+        // setters
+        /**
+         * gives the monster the actions and tactics of its species. the actions are shared definitions and
+         * the array is kept as is so it must not be modified.
+         * @param actions the BASIC, SKILL and CRITICAL actions of the monster. entries can be null.
+         * @param tactics the tactics of the monster.
+         */
+        public void learn(Action[] actions, Tactics tactics){
+            this.initActions = actions;
+            this.tactics = tactics;
+            this.resetActions();
+        }
+        /**
+         * puts the monster back in the state it was spawned in so that it can be reused for another
+         * encounter: stats back to their initial values, actions back to those of its species with their
+         * cooldowns restarted and healthy flags.
+         */
+        public void reset(){
+            this.stats.restore(this.initStats);
+            this.resetActions();
+            this.forms = 1;
+            this.healthCheck();
+        }
+        /**
+         * sets the actions of the species in the action set. nothing is allocated.
+         */
+        private void resetActions(){
+            this.abilities.clear();
+            try{
+                if(this.initActions[ActionSet.BASIC] != null)
+                    this.abilities.setBasic(this.initActions[ActionSet.BASIC]);
+                if(this.initActions[ActionSet.SKILL] != null)
+                    this.abilities.setSkill(this.initActions[ActionSet.SKILL]);
+                if(this.initActions[ActionSet.CRITICAL] != null)
+                    this.abilities.setCritical(this.initActions[ActionSet.CRITICAL]);
+            }catch(NullActionArgumentException e){
+                throw new IllegalStateException(e); // unreachable: null actions are skipped
+            }
+        }
+    }
+
+    /** Prototype object:
+     * immutable description of a hostile species as read from its data file. a prototype is parsed once
+     * and then used to spawn as many Monster or Boss objects as needed without reading any file. the stats
+     * array and the loot items are shared with the spawned hostiles and must never be modified.
+     */
+    public static class Prototype{
+        // attributes
+        private final boolean boss;
+        private final String name;
+        private final String description;
+        private final Element attribute;
+        private final int level;
+        private final int[] stats;
+        private final Item[] loot;
+        private final int forms;
+        private final String[] enhanced;
+        private final String[] actionIds; // BASIC, SKILL and CRITICAL action ids; entries can be null
+        private final Action[] actions;
+        private final Tactics tactics;
+
+        /** constructor:
+         * expects all the data of a hostile species but its actions and tactics: the hostile only strikes.
+         * "forms" and "enhanced" are only used by bosses.
+         * @param boss true if the prototype spawns Boss objects.
+         * @param name the name of the hostile.
+         * @param description the description of the hostile.
+         * @param attribute the elemental attribute of the hostile. can be null.
+         * @param level the level of the hostile.
+         * @param stats initial values of the hostile stats.
+         * @param loot list of items that the hostile carries.
+         * @param forms the number of forms of a boss.
+         * @param enhanced the list of stats a boss enhances when morphing.
+         */
+        public Prototype(boolean boss, String name, String description, Element attribute, int level, int[] stats,
+                         Item[] loot, int forms, String[] enhanced)
+        {
+            this(boss, name, description, attribute, level, stats, loot, forms, enhanced, new String[3],
+                new Action[3], Tactics.DEFAULT);
+        }
+        /** constructor:
+         * expects all the data of a hostile species. "forms" and "enhanced" are only used by bosses.
+         * @param boss true if the prototype spawns Boss objects.
+         * @param name the name of the hostile.
+         * @param description the description of the hostile.
+         * @param attribute the elemental attribute of the hostile. can be null.
+         * @param level the level of the hostile.
+         * @param stats initial values of the hostile stats.
+         * @param loot list of items that the hostile carries.
+         * @param forms the number of forms of a boss.
+         * @param enhanced the list of stats a boss enhances when morphing.
+         * @param actionIds the ids of the BASIC, SKILL and CRITICAL actions of the hostile. entries can be null.
+         * @param actions the actions matching actionIds.
+         * @param tactics the tactics the hostile picks its actions with. null for Tactics.DEFAULT.
+         */
+        public Prototype(boolean boss, String name, String description, Element attribute, int level, int[] stats,
+                         Item[] loot, int forms, String[] enhanced, String[] actionIds, Action[] actions,
+                         Tactics tactics)
+        {
+            this.boss = boss;
+            this.name = name;
+            this.description = description;
+            this.attribute = attribute == null ? Elements.of(Elements.NONE) : attribute;
+            this.level = level;
+            this.stats = stats.clone();
+            this.loot = loot.clone();
+            this.forms = forms;
+            this.enhanced = enhanced == null ? new String[0] : enhanced.clone();
+            this.actionIds = actionIds.clone();
+            this.actions = actions.clone();
+            this.tactics = tactics == null ? Tactics.DEFAULT : tactics;
+        }
+
+        // getters
+        /**
+         * @return true if the prototype spawns Boss objects.
+         */
+        public boolean isBoss(){ return this.boss; }
+        /**
+         * @return the name of the hostile.
+         */
+        public String name(){ return this.name; }
+        /**
+         * @return the description of the hostile.
+         */
+        public String description(){ return this.description; }
+        /**
+         * @return the elemental attribute of the hostile.
+         */
+        public Element attribute(){ return this.attribute; }
+        /**
+         * @return the level of the hostile.
+         */
+        public int level(){ return this.level; }
+        /**
+         * @return the initial stats of the hostile. must not be modified.
+         */
+        public int[] stats(){ return this.stats; }
+        /**
+         * @return the items carried by the hostile. must not be modified.
+         */
+        public Item[] loot(){ return this.loot; }
+        /**
+         * @return the number of forms of the hostile.
+         */
+        public int forms(){ return this.forms; }
+        /**
+         * @return the stats enhanced when a boss morphs.
+         */
+        public String[] enhanced(){ return this.enhanced; }
+        /**
+         * @return the ids of the BASIC, SKILL and CRITICAL actions of the hostile. entries can be null. must
+         * not be modified.
+         */
+        public String[] actionIds(){ return this.actionIds; }
+        /**
+         * @return the tactics of the hostile.
+         */
+        public Tactics tactics(){ return this.tactics; }
+
+        // other methods
+        /**
+         * creates a new hostile from this prototype.
+         * @return a Monster or a Boss object at full stats with the actions and tactics of the species.
+         */
+        public Monster spawn() throws WrongSizeStatsArrayException {
+            Monster hostile = this.boss ?
+                new Boss(this.name, this.description, this.attribute, this.level, this.stats, this.loot, this.forms,
+                    this.enhanced) :
+                new Monster(this.name, this.description, this.attribute, this.level, this.stats, this.loot);
+            hostile.learn(this.actions, this.tactics);
+            return hostile;
+        }
     }
 
     /** Boss object:
@@ -74,6 +267,7 @@ public class Hostiles {
     public static class Boss extends Monster{
         // attributes
         String[] statsToEnhance;
+        private final int initForms; // forms to go back to when the boss is recycled
 
         // constructor
         /**
@@ -93,6 +287,7 @@ public class Hostiles {
             super(name, description, attribute, level, initStats, loot);
             // add Boss attributes
             this.forms = forms;
+            this.initForms = forms;
             this.statsToEnhance = statsList.clone();
         }
 
@@ -105,6 +300,15 @@ public class Hostiles {
         }
 
         // setters
+        /**
+         * same as Monster.reset() but also gives the boss back all its forms. the stats developed by
+         * morph() go back to their initial values.
+         */
+        @Override
+        public void reset(){
+            super.reset();
+            this.forms = this.initForms;
+        }
         /**
          * change to the next form. develop the stats in statsToEnhance and reinitialize all its stats to
          * get rid of stat changes that might have occurred. also reduce the number of forms remaining by 1.
@@ -125,5 +329,63 @@ public class Hostiles {
             this.forms--; // update remaining forms
         }
     }
-}
 
+    /** Tactics object:
+     * weight profile a hostile species picks its actions with. each ready action of the hostile is scored
+     * as the sum of its features weighted by the profile and the best scored one is used:
+     * - order: the kind of the action: 0 for the basic, 1 for the skill and 2 for the critical one;
+     * - power: the damage multiplier of an agression times its chance to hit;
+     * - area: the number of extra opponents an agression on every opponent hits;
+     * - finish: the part of their HP the opponents lost, for agressions;
+     * - heal: the part of its HP the hostile lost, for buffs that restore HP;
+     * - support: the number of other stats a buff raises;
+     * - hinder: the number of stats a nerf lowers.
+     * the DEFAULT profile only weighs the order: the critical action once critical, else the skill when
+     * ready, else the basic action. profiles are immutable and shared by every hostile of the species.
+     */
+    public static class Tactics{
+        public static final String[] FEATURES = {"order", "power", "area", "finish", "heal", "support", "hinder"};
+        public static final int ORDER = 0;
+        public static final int POWER = 1;
+        public static final int AREA = 2;
+        public static final int FINISH = 3;
+        public static final int HEAL = 4;
+        public static final int SUPPORT = 5;
+        public static final int HINDER = 6;
+        public static final Tactics DEFAULT = new Tactics(new float[]{1f, 0f, 0f, 0f, 0f, 0f, 0f});
+        // attributes
+        private final float[] weights;
+
+        /** constructor:
+         * expects a weight for each feature, in FEATURES order.
+         * @param weights the weights of the profile.
+         * @throws IllegalArgumentException when there isn't one weight per feature.
+         */
+        public Tactics(float[] weights){
+            if(weights.length != FEATURES.length)
+                throw new IllegalArgumentException("tactics need " + FEATURES.length + " weights.");
+            this.weights = weights.clone();
+        }
+
+        // getters
+        /**
+         * @param feature the index of a feature in FEATURES.
+         * @return the weight of the feature.
+         */
+        public float weight(int feature){ return this.weights[feature]; }
+
+        // other methods
+        /**
+         * @param name the name of a feature.
+         * @return the index of the feature in FEATURES.
+         * @throws UndefinedKeyException if there is no such feature.
+         */
+        public static int feature(String name) throws UndefinedKeyException {
+            for(int i = 0; i < FEATURES.length; i++){
+                if(FEATURES[i].equals(name))
+                    return i;
+            }
+            throw new UndefinedKeyException(name + " is not a tactics feature.");
+        }
+    }
+}
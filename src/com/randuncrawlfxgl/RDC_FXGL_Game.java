@@ -3,6 +3,8 @@ package com.randuncrawlfxgl;
 import com.almasb.fxgl.app.GameApplication;
 import com.almasb.fxgl.app.GameSettings;
 
+import Customs.Utilities.ContentRegistry;
+
 public class RDC_FXGL_Game extends GameApplication {
 
     @Override
@@ -10,7 +12,8 @@ public class RDC_FXGL_Game extends GameApplication {
 
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        ContentRegistry.shared(); // parse all game content once before the first battle
         launch(args);
     }
 }